@@ -0,0 +1,84 @@
+package connection;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoopbackConnectionBenchmark {
+    private static final int INBOUND_BUFFER_SIZE = 64 * 1024;
+    private static final int BATCH_MESSAGES_NUMBER = 64;
+
+    @Param({"STREAM", "CHANNEL"})
+    private String connectionType;
+
+    @Param({"JSON", "BINARY"})
+    private MessageCodecType codecType;
+
+    private UserConnection senderConnection;
+    private UserConnection receiverConnection;
+
+    private final EncodedMessage message = new EncodedMessage(new Message(MessageType.TEXT_MESSAGE,
+            "[CLIENT] benchmark\nThe quick brown fox jumps over the lazy dog\n"));
+
+    @Setup
+    public void setUp() throws IOException {
+        if (connectionType.equals("STREAM")) {
+            try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+                Socket senderSocket = new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+                senderSocket.setTcpNoDelay(true);
+                senderConnection = new StreamUserConnection(senderSocket);
+                receiverConnection = new StreamUserConnection(serverSocket.accept());
+            }
+        } else {
+            try (ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+                serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+                SocketChannel senderChannel = SocketChannel.open(serverChannel.getLocalAddress());
+                senderChannel.socket().setTcpNoDelay(true);
+                ByteBufferPool inboundBuffersPool = new ByteBufferPool(INBOUND_BUFFER_SIZE, 2);
+                OutboundQueueSettings outboundQueueSettings = OutboundQueueSettings.builder().build();
+                senderConnection = new ChannelUserConnection(senderChannel, outboundQueueSettings, inboundBuffersPool);
+                receiverConnection = new ChannelUserConnection(serverChannel.accept(), outboundQueueSettings, inboundBuffersPool);
+            }
+        }
+        senderConnection.setCodec(codecType.getCodec());
+        receiverConnection.setCodec(codecType.getCodec());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        senderConnection.close();
+        receiverConnection.close();
+    }
+
+    @Benchmark
+    public Message sendAndReceiveMessage() throws IOException {
+        senderConnection.send(message);
+        return receiverConnection.receive();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_MESSAGES_NUMBER)
+    public Message sendAndReceiveBatch() throws IOException {
+        for (int i = 0; i < BATCH_MESSAGES_NUMBER; i++) {
+            senderConnection.send(message);
+        }
+        Message lastMessage = null;
+        for (int i = 0; i < BATCH_MESSAGES_NUMBER; i++) {
+            lastMessage = receiverConnection.receive();
+        }
+        return lastMessage;
+    }
+}
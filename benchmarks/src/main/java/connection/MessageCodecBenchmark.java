@@ -0,0 +1,94 @@
+package connection;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageCodecBenchmark {
+    @Param({"JSON", "BINARY"})
+    private MessageCodecType codecType;
+
+    private MessageCodec codec;
+
+    private Message textMessage;
+    private Message usernamesMessage;
+
+    private byte[] encodedTextMessage;
+    private byte[] encodedUsernamesMessage;
+
+    private ByteBuffer inboundTextMessage;
+    private ByteBuffer inboundUsernamesMessage;
+
+    @Setup
+    public void setUp() {
+        codec = codecType.getCodec();
+
+        textMessage = new Message(MessageType.TEXT_MESSAGE,
+                "[CLIENT] benchmark\nThe quick brown fox jumps over the lazy dog\n");
+        Set<String> connectedUsernames = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            connectedUsernames.add("user-" + i);
+        }
+        usernamesMessage = new Message(MessageType.LOGIN_ACCEPTED, connectedUsernames);
+
+        encodedTextMessage = codec.encode(textMessage);
+        encodedUsernamesMessage = codec.encode(usernamesMessage);
+
+        inboundTextMessage = ByteBuffer.allocateDirect(encodedTextMessage.length).put(0, encodedTextMessage);
+        inboundUsernamesMessage = ByteBuffer.allocateDirect(encodedUsernamesMessage.length).put(0, encodedUsernamesMessage);
+    }
+
+    @Benchmark
+    public byte[] encodeTextMessage(WireBytesCounters wireBytesCounters) {
+        byte[] frame = codec.encode(textMessage);
+        wireBytesCounters.encodedBytes += frame.length;
+        return frame;
+    }
+
+    @Benchmark
+    public Message decodeTextMessage() throws ProtocolException {
+        return codec.decode(inboundTextMessage, 0, encodedTextMessage.length);
+    }
+
+    @Benchmark
+    public byte[] relayTextMessage() throws ProtocolException {
+        Message receivedMessage = codec.decode(inboundTextMessage, 0, encodedTextMessage.length);
+        return codec.encode(Message.builder()
+                .messageType(MessageType.TEXT_MESSAGE)
+                .messageTextBytes(receivedMessage.getMessageTextBytes())
+                .build());
+    }
+
+    @Benchmark
+    public byte[] encodeUsernamesMessage(WireBytesCounters wireBytesCounters) {
+        byte[] frame = codec.encode(usernamesMessage);
+        wireBytesCounters.encodedBytes += frame.length;
+        return frame;
+    }
+
+    @Benchmark
+    public Message decodeUsernamesMessage() throws ProtocolException {
+        return codec.decode(inboundUsernamesMessage, 0, encodedUsernamesMessage.length);
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class WireBytesCounters {
+        public long encodedBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            encodedBytes = 0;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package server;
+
+import connection.EncodedMessage;
+import connection.Message;
+import connection.MessageType;
+import connection.UserConnection;
+import org.openjdk.jmh.infra.Blackhole;
+
+class BlackholeUserConnection extends UserConnection {
+    private static final Message DISCONNECT_MESSAGE = new Message(MessageType.DISCONNECT);
+
+    private final Blackhole blackhole;
+
+    BlackholeUserConnection(Blackhole blackhole) {
+        this.blackhole = blackhole;
+    }
+
+    @Override
+    public void send(EncodedMessage encodedMessage) {
+        blackhole.consume(encodedMessage.getBytes(codec));
+    }
+
+    @Override
+    public void enqueue(EncodedMessage encodedMessage) {
+        send(encodedMessage);
+    }
+
+    @Override
+    public Message receive() {
+        return DISCONNECT_MESSAGE;
+    }
+
+    @Override
+    public boolean areThereInSocketAnyData() {
+        return false;
+    }
+
+    @Override
+    public int getOutboundQueueSize() {
+        return 0;
+    }
+
+    @Override
+    public long getDroppedFramesNumber() {
+        return 0;
+    }
+
+    @Override
+    public boolean awaitOutboundQueueSizeAtMost(int framesNumber, long timeoutMillis) {
+        return true;
+    }
+
+    @Override
+    public boolean hasPendingOutboundFrames() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+    }
+}
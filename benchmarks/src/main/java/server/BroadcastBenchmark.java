@@ -0,0 +1,68 @@
+package server;
+
+import connection.Message;
+import connection.MessageType;
+import connection.UserConnection;
+import connection.UserMetaInfo;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BroadcastBenchmark {
+    @Param({"10", "100", "1000", "10000"})
+    private int recipientsNumber;
+
+    private ServerController serverController;
+    private UserConnection churningUserConnection;
+    private final UserMetaInfo churningUserMetaInfo = UserMetaInfo.builder().username("churning-user").build();
+
+    private final Message message = new Message(MessageType.TEXT_MESSAGE,
+            "[CLIENT] benchmark\nThe quick brown fox jumps over the lazy dog\n");
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        serverController = new ServerController();
+        serverController.setServerLogger(serviceMessage -> {
+        });
+        serverController.setServerModel(new ServerModel());
+        for (int i = 0; i < recipientsNumber; i++) {
+            serverController.getServerModel().addNewUserIfUsernameAvailable("user-" + i, new BlackholeUserConnection(blackhole),
+                    UserMetaInfo.builder().username("user-" + i).build());
+        }
+        churningUserConnection = new BlackholeUserConnection(blackhole);
+    }
+
+    @Benchmark
+    public void encodeOncePerBroadcast() {
+        serverController.sendBroadcastMessage(message);
+    }
+
+    @Benchmark
+    public void encodeOncePerRecipient() {
+        for (UserConnection userConnection : serverController.getServerModel().getOnlineUsersConnections().values()) {
+            userConnection.send(message);
+        }
+    }
+
+    @Benchmark
+    @Group("membershipChurn")
+    @GroupThreads(3)
+    public void broadcastDuringMembershipChurn() {
+        serverController.sendBroadcastMessage(message);
+    }
+
+    @Benchmark
+    @Group("membershipChurn")
+    @GroupThreads(1)
+    public void joinAndLeaveDuringBroadcasts() {
+        serverController.getServerModel().addNewUserIfUsernameAvailable("churning-user", churningUserConnection, churningUserMetaInfo);
+        serverController.getServerModel().removeUserByUsername("churning-user", churningUserConnection);
+    }
+}
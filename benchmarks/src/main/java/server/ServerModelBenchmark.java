@@ -0,0 +1,74 @@
+package server;
+
+import connection.UserConnection;
+import connection.UserMetaInfo;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServerModelBenchmark {
+    private static final int ONLINE_USERS_NUMBER = 1000;
+
+    private ServerModel serverModel;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        serverModel = new ServerModel();
+        for (int i = 0; i < ONLINE_USERS_NUMBER; i++) {
+            serverModel.addNewUserIfUsernameAvailable("online-user-" + i, new BlackholeUserConnection(blackhole),
+                    UserMetaInfo.builder().username("online-user-" + i).build());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class RegisteringUser {
+        private static final AtomicInteger nextUserIndex = new AtomicInteger();
+
+        private String username;
+        private UserConnection userConnection;
+        private UserMetaInfo userMetaInfo;
+
+        @Setup
+        public void setUp(Blackhole blackhole) {
+            username = "registering-user-" + nextUserIndex.getAndIncrement();
+            userConnection = new BlackholeUserConnection(blackhole);
+            userMetaInfo = UserMetaInfo.builder().username(username).build();
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean registerAndRemoveUser(RegisteringUser registeringUser) {
+        serverModel.addNewUserIfUsernameAvailable(registeringUser.username, registeringUser.userConnection, registeringUser.userMetaInfo);
+        return serverModel.removeUserByUsername(registeringUser.username, registeringUser.userConnection);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean registerTakenUsername(RegisteringUser registeringUser) {
+        return serverModel.addNewUserIfUsernameAvailable("online-user-0", registeringUser.userConnection, registeringUser.userMetaInfo);
+    }
+
+    @Benchmark
+    @Group("registrationDuringReads")
+    @GroupThreads(3)
+    public UserConnection[] readOnlineUsersSnapshot() {
+        return serverModel.getOnlineUsersConnectionsSnapshot();
+    }
+
+    @Benchmark
+    @Group("registrationDuringReads")
+    @GroupThreads(1)
+    public boolean registerAndRemoveUserDuringReads(RegisteringUser registeringUser) {
+        serverModel.addNewUserIfUsernameAvailable(registeringUser.username, registeringUser.userConnection, registeringUser.userMetaInfo);
+        return serverModel.removeUserByUsername(registeringUser.username, registeringUser.userConnection);
+    }
+}
@@ -0,0 +1,43 @@
+package utilities;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class FormatMessagesBuilderBenchmark {
+    private static final String LOG_MESSAGE = "A new user connected with a remote socket /127.0.0.1:50000";
+
+    @Benchmark
+    public String buildDateNowWithSimpleDateFormat() {
+        return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss z").format(Calendar.getInstance().getTime());
+    }
+
+    @Benchmark
+    public String buildDateNowWithCachedSecond() {
+        return FormatMessagesBuilder.buildDateNow();
+    }
+
+    @Benchmark
+    public String buildDateFromEpochNanos() {
+        return FormatMessagesBuilder.buildDateFromEpochNanos(EpochNanosClock.now());
+    }
+
+    @Benchmark
+    public String buildMessageWithDateNowWithSimpleDateFormat() {
+        return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss z").format(Calendar.getInstance().getTime()) + " | " + LOG_MESSAGE + "\n";
+    }
+
+    @Benchmark
+    public String buildMessageWithDateNowWithCachedSecond() {
+        return FormatMessagesBuilder.buildMessageWithDateNow(LOG_MESSAGE);
+    }
+}
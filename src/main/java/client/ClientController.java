@@ -2,13 +2,24 @@ package client;
 
 import connection.*;
 import org.apache.commons.validator.routines.InetAddressValidator;
+import utilities.EpochNanosClock;
 import utilities.FormatMessagesBuilder;
 
 import javax.naming.InvalidNameException;
 import java.io.IOException;
 import java.net.Socket;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 public class ClientController {
+    private static final int HISTORY_PAGE_SIZE = 50;
+    private static final int MAX_ANNOUNCED_PRESENCE_CHANGES_NUMBER = 10;
+    private static final String DIRECT_MESSAGE_COMMAND = "/w ";
+    private static final String JOIN_ROOM_COMMAND = "/join ";
+    private static final String LEAVE_ROOM_COMMAND = "/leave";
+    private static final String TRACE_COMMAND = "/trace ";
+
     private UserConnection userConnection;
     private ClientModel clientModel;
     private ClientSwingView graphicView;
@@ -57,7 +68,7 @@ public class ClientController {
     private void createConnectionToServer(String serverAddress, int serverPort) throws IOException {
         if (isValidServerIPv4Address(serverAddress) && isValidServerPort(serverPort)) {
             Socket socket = new Socket(serverAddress, serverPort);
-            userConnection = new UserConnection(socket);
+            userConnection = new StreamUserConnection(socket);
         } else {
             throw new IOException();
         }
@@ -79,7 +90,7 @@ public class ClientController {
 
                 if (MessageType.isTypeRequestUsername(serverResponse.getMessageType())) {
                     String username = graphicView.requestUsernameByShowingInputDialog();
-                    userConnection.send(new Message(MessageType.NEW_USERNAME, username));
+                    sendUsernameNegotiatingCodec(username, serverResponse.getCodecType());
                 }
 
                 if (MessageType.isTypeRequestPassword(serverResponse.getMessageType())) {
@@ -95,7 +106,11 @@ public class ClientController {
                 if (MessageType.isTypeLoginAccepted(serverResponse.getMessageType())) {
                     graphicView.addMessageToCommonChat(FormatMessagesBuilder.buildChatTextAreaServiceMessage(
                             "Your name is accepted! Welcome to common chat!"));
-                    clientModel.setConnectedUsernames(serverResponse.getConnectedUsernames());
+                    clientModel.setConnectedUsernames(new HashSet<>());
+                    clientModel.invalidatePresence();
+                    clientModel.resetOldestKnownSequenceId();
+                    clientModel.updateOldestKnownSequenceId(serverResponse.getSequenceId());
+                    clientModel.setCurrentRoomName(null);
                     break;
                 }
 
@@ -112,37 +127,251 @@ public class ClientController {
         }
     }
 
+    private void sendUsernameNegotiatingCodec(String username, MessageCodecType offeredCodecType) {
+        boolean isBinaryCodecAccepted = offeredCodecType == MessageCodecType.BINARY;
+        clientModel.setUsername(username);
+        userConnection.send(Message.builder()
+                .messageType(MessageType.NEW_USERNAME)
+                .messageText(username)
+                .codecType(isBinaryCodecAccepted ? MessageCodecType.BINARY : null)
+                .presenceDeltasRequested(true)
+                .build());
+        if (isBinaryCodecAccepted) {
+            userConnection.setCodec(MessageCodecType.BINARY.getCodec());
+        }
+    }
+
     protected void sendMessageToCommonChat(String textToSend) {
         try {
-            userConnection.send(new Message(MessageType.TEXT_MESSAGE, textToSend));
+            if (textToSend.startsWith(DIRECT_MESSAGE_COMMAND)) {
+                sendDirectMessage(textToSend.substring(DIRECT_MESSAGE_COMMAND.length()).trim());
+                return;
+            }
+            if (textToSend.startsWith(JOIN_ROOM_COMMAND)) {
+                joinRoom(textToSend.substring(JOIN_ROOM_COMMAND.length()).trim());
+                return;
+            }
+            if (textToSend.trim().equals(LEAVE_ROOM_COMMAND)) {
+                leaveCurrentRoom();
+                return;
+            }
+            if (textToSend.startsWith(TRACE_COMMAND)) {
+                switchTraceEcho(textToSend.substring(TRACE_COMMAND.length()).trim());
+                return;
+            }
+            userConnection.send(Message.builder()
+                    .messageType(MessageType.TEXT_MESSAGE)
+                    .messageText(textToSend)
+                    .roomName(clientModel.getCurrentRoomName())
+                    .timestampEpochNanos(clientModel.isTraceEchoEnabled() ? EpochNanosClock.now() : null)
+                    .build());
         } catch (Exception exception) {
             graphicView.showErrorMessageDialog("Error sending the message");
         }
     }
 
+    private void joinRoom(String roomName) {
+        if (roomName.isEmpty()) {
+            graphicView.addMessageToCommonChat(FormatMessagesBuilder.buildChatTextAreaServiceMessage(
+                    "Usage: /join <room>"));
+            return;
+        }
+
+        String currentRoomName = clientModel.getCurrentRoomName();
+        if (currentRoomName != null && !currentRoomName.equals(roomName)) {
+            userConnection.send(Message.builder()
+                    .messageType(MessageType.LEAVE_ROOM)
+                    .roomName(currentRoomName)
+                    .build());
+        }
+        userConnection.send(Message.builder()
+                .messageType(MessageType.JOIN_ROOM)
+                .roomName(roomName)
+                .build());
+    }
+
+    private void leaveCurrentRoom() {
+        String currentRoomName = clientModel.getCurrentRoomName();
+        if (currentRoomName == null) {
+            graphicView.addMessageToCommonChat(FormatMessagesBuilder.buildChatTextAreaServiceMessage(
+                    "You are in the common chat, there is no room to leave"));
+            return;
+        }
+
+        userConnection.send(Message.builder()
+                .messageType(MessageType.LEAVE_ROOM)
+                .roomName(currentRoomName)
+                .build());
+    }
+
+    private void switchTraceEcho(String commandArgument) {
+        if (!commandArgument.equals("on") && !commandArgument.equals("off")) {
+            graphicView.addMessageToCommonChat(FormatMessagesBuilder.buildChatTextAreaServiceMessage(
+                    "Usage: /trace on|off"));
+            return;
+        }
+
+        clientModel.setTraceEchoEnabled(commandArgument.equals("on"));
+        graphicView.addMessageToCommonChat(FormatMessagesBuilder.buildChatTextAreaServiceMessage(
+                "Echoing the receive time of traced messages is " + commandArgument));
+    }
+
+    private void sendTraceEcho(Long sequenceId, long receivedEpochNanos) {
+        userConnection.send(Message.builder()
+                .messageType(MessageType.TRACE_ECHO)
+                .sequenceId(sequenceId)
+                .timestampEpochNanos(receivedEpochNanos)
+                .build());
+    }
+
+    private void sendDirectMessage(String commandArguments) {
+        int separatorIndex = commandArguments.indexOf(' ');
+        if (separatorIndex <= 0) {
+            graphicView.addMessageToCommonChat(FormatMessagesBuilder.buildChatTextAreaServiceMessage(
+                    "Usage: /w <username> <message>"));
+            return;
+        }
+
+        userConnection.send(Message.builder()
+                .messageType(MessageType.DIRECT_MESSAGE)
+                .recipientUsername(commandArguments.substring(0, separatorIndex))
+                .messageText(commandArguments.substring(separatorIndex + 1))
+                .build());
+    }
+
+    protected void requestHistoryPage() {
+        try {
+            userConnection.send(Message.builder()
+                    .messageType(MessageType.HISTORY_REQUEST)
+                    .sequenceId(clientModel.getOldestKnownSequenceId())
+                    .historyPageSize(HISTORY_PAGE_SIZE)
+                    .build());
+        } catch (Exception exception) {
+            graphicView.showErrorMessageDialog("Error requesting the chat history");
+        }
+    }
+
+    private void handleHistoryResponse(Message historyResponse) {
+        if (historyResponse.hasMessageText()) {
+            clientModel.addPendingHistoryMessage(historyResponse.getMessageText());
+            return;
+        }
+
+        List<String> historyMessages = clientModel.takePendingHistoryMessages();
+        if (historyMessages.isEmpty()) {
+            graphicView.addMessageToCommonChat(FormatMessagesBuilder.buildChatTextAreaServiceMessage(
+                    "There are no earlier messages in the chat history"));
+            return;
+        }
+
+        clientModel.updateOldestKnownSequenceId(historyResponse.getSequenceId());
+        graphicView.prependMessagesToCommonChat(historyMessages);
+    }
+
+    private void handlePresenceSnapshotPage(Message snapshotPage) {
+        clientModel.addPresenceSnapshotPage(snapshotPage.getConnectedUsernames());
+        if (snapshotPage.getPresenceVersion() != null) {
+            clientModel.completePresenceSnapshot(snapshotPage.getPresenceVersion());
+            graphicView.setALlOnlineUsersToConnectedUsernamesList(clientModel.getConnectedUsernames());
+        }
+    }
+
+    private void handlePresenceDelta(Message presenceDelta) {
+        if (!clientModel.isPresenceSynchronized() || clientModel.isPresenceDeltaStale(presenceDelta.getPresenceVersion())) {
+            return;
+        }
+
+        if (!clientModel.isPresenceDeltaContinuous(presenceDelta.getPreviousPresenceVersion())) {
+            clientModel.invalidatePresence();
+            userConnection.send(new Message(MessageType.PRESENCE_RESYNC_REQUEST));
+            return;
+        }
+
+        Set<String> addedUsernames = presenceDelta.getConnectedUsernames() == null ? Set.of() : presenceDelta.getConnectedUsernames();
+        Set<String> removedUsernames = presenceDelta.getRemovedUsernames() == null ? Set.of() : presenceDelta.getRemovedUsernames();
+        clientModel.applyPresenceDelta(presenceDelta.getPresenceVersion(), addedUsernames, removedUsernames);
+        for (String removedUsername : removedUsernames) {
+            graphicView.removeNewUserFromConnectedUsernamesList(removedUsername);
+        }
+        for (String addedUsername : addedUsernames) {
+            graphicView.addUserToConnectedUsernamesList(addedUsername);
+        }
+        announcePresenceChanges(addedUsernames, removedUsernames);
+    }
+
+    private void announcePresenceChanges(Set<String> addedUsernames, Set<String> removedUsernames) {
+        if (addedUsernames.size() + removedUsernames.size() > MAX_ANNOUNCED_PRESENCE_CHANGES_NUMBER) {
+            graphicView.addMessageToCommonChat(FormatMessagesBuilder.buildChatTextAreaServiceMessage(
+                    addedUsernames.size() + " users joined and " + removedUsernames.size() + " users left the chat"));
+            return;
+        }
+
+        for (String addedUsername : addedUsernames) {
+            graphicView.addMessageToCommonChat(FormatMessagesBuilder.buildChatTextAreaServiceMessage(
+                    "The user " + addedUsername + " joined to the chat"));
+        }
+        for (String removedUsername : removedUsernames) {
+            graphicView.addMessageToCommonChat(FormatMessagesBuilder.buildChatTextAreaServiceMessage(
+                    "The user " + removedUsername + " left from the chat"));
+        }
+    }
+
     protected void receiveMessageFromCommonChat() {
         while (hasClientConnectedToServer) {
             try {
                 Message serverResponse = userConnection.receive();
 
-                if (MessageType.isTypeTextMessage(serverResponse.getMessageType())) {
+                if (MessageType.isTypeTextMessage(serverResponse.getMessageType())
+                        || MessageType.isTypeDirectMessage(serverResponse.getMessageType())) {
+                    if (clientModel.isTraceEchoEnabled() && serverResponse.isTraceRequested()) {
+                        sendTraceEcho(serverResponse.getSequenceId(), EpochNanosClock.now());
+                    }
+                    clientModel.updateOldestKnownSequenceId(serverResponse.getSequenceId());
                     graphicView.addMessageToCommonChat(serverResponse.getMessageText());
                 }
 
-                if (MessageType.isTypeNewUserAdded(serverResponse.getMessageType())) {
-                    String usernameForAdd = serverResponse.getMessageText();
-                    clientModel.addUserToConnectedOnes(usernameForAdd);
-                    graphicView.setALlOnlineUsersToConnectedUsernamesList(clientModel.getConnectedUsernames());
+                if (MessageType.isTypeJoinRoom(serverResponse.getMessageType())) {
+                    if (serverResponse.getMessageText().equals(clientModel.getUsername())) {
+                        clientModel.setCurrentRoomName(serverResponse.getRoomName());
+                    }
+                    graphicView.addMessageToCommonChat(FormatMessagesBuilder.buildChatTextAreaServiceMessage(
+                            "The user " + serverResponse.getMessageText() + " joined the room #" + serverResponse.getRoomName()));
+                }
+
+                if (MessageType.isTypeLeaveRoom(serverResponse.getMessageType())) {
+                    if (serverResponse.getMessageText().equals(clientModel.getUsername())
+                            && serverResponse.getRoomName().equals(clientModel.getCurrentRoomName())) {
+                        clientModel.setCurrentRoomName(null);
+                    }
                     graphicView.addMessageToCommonChat(FormatMessagesBuilder.buildChatTextAreaServiceMessage(
-                            "The user " + usernameForAdd + " joined to the chat"));
+                            "The user " + serverResponse.getMessageText() + " left the room #" + serverResponse.getRoomName()));
                 }
 
-                if (MessageType.isTypeUserDeleted(serverResponse.getMessageType())) {
-                    String usernameForDelete = serverResponse.getMessageText();
-                    clientModel.removeUserFromConnectedOnes(usernameForDelete);
-                    graphicView.removeNewUserFromConnectedUsernamesList(usernameForDelete);
+                if (MessageType.isTypeThrottled(serverResponse.getMessageType())) {
                     graphicView.addMessageToCommonChat(FormatMessagesBuilder.buildChatTextAreaServiceMessage(
-                            "The user " + usernameForDelete + " left from the chat"));
+                            serverResponse.getMessageText()));
+                }
+
+                if (MessageType.isTypeRoomRequestFailed(serverResponse.getMessageType())) {
+                    graphicView.addMessageToCommonChat(FormatMessagesBuilder.buildChatTextAreaServiceMessage(
+                            serverResponse.getMessageText()));
+                }
+
+                if (MessageType.isTypeDirectMessageFailed(serverResponse.getMessageType())) {
+                    graphicView.addMessageToCommonChat(FormatMessagesBuilder.buildChatTextAreaServiceMessage(
+                            serverResponse.getMessageText()));
+                }
+
+                if (MessageType.isTypeHistoryResponse(serverResponse.getMessageType())) {
+                    handleHistoryResponse(serverResponse);
+                }
+
+                if (MessageType.isTypePresenceSnapshot(serverResponse.getMessageType())) {
+                    handlePresenceSnapshotPage(serverResponse);
+                }
+
+                if (MessageType.isTypePresenceDelta(serverResponse.getMessageType())) {
+                    handlePresenceDelta(serverResponse);
                 }
             } catch (Exception exception) {
                 if (hasClientConnectedToServer) {
@@ -1,11 +1,29 @@
 package client;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 public class ClientModel {
+    private static final long UNKNOWN_PRESENCE_VERSION = -1;
+
     private Set<String> connectedUsernames = new HashSet<>();
 
+    private long presenceVersion = UNKNOWN_PRESENCE_VERSION;
+
+    private final Set<String> pendingSnapshotUsernames = new HashSet<>();
+
+    private volatile Long oldestKnownSequenceId;
+
+    private volatile String username;
+
+    private volatile String currentRoomName;
+
+    private volatile boolean isTraceEchoEnabled = false;
+
+    private final List<String> pendingHistoryMessages = new ArrayList<>();
+
     protected Set<String> getConnectedUsernames() {
         return connectedUsernames;
     }
@@ -21,4 +39,92 @@ public class ClientModel {
     protected void setConnectedUsernames(Set<String> connectedUsernames) {
         this.connectedUsernames = connectedUsernames;
     }
+
+    protected void addPresenceSnapshotPage(Set<String> pageUsernames) {
+        if (pageUsernames != null) {
+            pendingSnapshotUsernames.addAll(pageUsernames);
+        }
+    }
+
+    protected void completePresenceSnapshot(long snapshotPresenceVersion) {
+        connectedUsernames = new HashSet<>(pendingSnapshotUsernames);
+        pendingSnapshotUsernames.clear();
+        presenceVersion = snapshotPresenceVersion;
+    }
+
+    protected boolean isPresenceSynchronized() {
+        return presenceVersion != UNKNOWN_PRESENCE_VERSION;
+    }
+
+    protected boolean isPresenceDeltaStale(long deltaPresenceVersion) {
+        return deltaPresenceVersion <= presenceVersion;
+    }
+
+    protected boolean isPresenceDeltaContinuous(long previousPresenceVersion) {
+        return previousPresenceVersion == presenceVersion;
+    }
+
+    protected void applyPresenceDelta(long deltaPresenceVersion, Set<String> addedUsernames, Set<String> removedUsernames) {
+        if (addedUsernames != null) {
+            connectedUsernames.addAll(addedUsernames);
+        }
+        if (removedUsernames != null) {
+            connectedUsernames.removeAll(removedUsernames);
+        }
+        presenceVersion = deltaPresenceVersion;
+    }
+
+    protected void invalidatePresence() {
+        presenceVersion = UNKNOWN_PRESENCE_VERSION;
+        pendingSnapshotUsernames.clear();
+    }
+
+    protected Long getOldestKnownSequenceId() {
+        return oldestKnownSequenceId;
+    }
+
+    protected void updateOldestKnownSequenceId(Long sequenceId) {
+        if (sequenceId != null && (oldestKnownSequenceId == null || sequenceId < oldestKnownSequenceId)) {
+            oldestKnownSequenceId = sequenceId;
+        }
+    }
+
+    protected void resetOldestKnownSequenceId() {
+        oldestKnownSequenceId = null;
+        pendingHistoryMessages.clear();
+    }
+
+    protected void addPendingHistoryMessage(String message) {
+        pendingHistoryMessages.add(message);
+    }
+
+    protected List<String> takePendingHistoryMessages() {
+        List<String> historyMessages = new ArrayList<>(pendingHistoryMessages);
+        pendingHistoryMessages.clear();
+        return historyMessages;
+    }
+
+    protected String getUsername() {
+        return username;
+    }
+
+    protected void setUsername(String username) {
+        this.username = username;
+    }
+
+    protected String getCurrentRoomName() {
+        return currentRoomName;
+    }
+
+    protected void setCurrentRoomName(String currentRoomName) {
+        this.currentRoomName = currentRoomName;
+    }
+
+    protected boolean isTraceEchoEnabled() {
+        return isTraceEchoEnabled;
+    }
+
+    protected void setTraceEchoEnabled(boolean isTraceEchoEnabled) {
+        this.isTraceEchoEnabled = isTraceEchoEnabled;
+    }
 }
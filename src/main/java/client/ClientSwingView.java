@@ -6,9 +6,13 @@ import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.IOException;
+import java.util.List;
 import java.util.Set;
 
 public class ClientSwingView {
+    private static final int MAX_CHAT_TEXT_AREA_LINES_NUMBER = 2000;
+    private static final int MAX_PREPENDED_HISTORY_LINES_NUMBER = 20000;
+
     private final ClientController clientController;
 
     private final JFrame clientMainFrame = new JFrame("Multi-user chat client");
@@ -29,7 +33,11 @@ public class ClientSwingView {
 
     private final JButton connectButton = new JButton("Connect");
 
-    public ClientSwingView(ClientController clientController) {
+    private final JButton loadHistoryButton = new JButton("Load history");
+
+    private int prependedHistoryLinesNumber = 0;
+
+    ClientSwingView(ClientController clientController) {
         this.clientController = clientController;
         initClientGraphicInterface();
         showInitScreen();
@@ -43,6 +51,7 @@ public class ClientSwingView {
         configureUsernamesList();
         addButtonClickListenerToDisconnect();
         addButtonClickListenerToConnect();
+        addButtonClickListenerToLoadHistory();
         addControllerForInputTextField();
     }
 
@@ -56,6 +65,7 @@ public class ClientSwingView {
     private void configureInitButtonsPanel() {
         interactionPanel.add(connectButton);
         interactionPanel.add(disconnectButton);
+        interactionPanel.add(loadHistoryButton);
     }
 
     private void configureUsernamesList() {
@@ -143,6 +153,16 @@ public class ClientSwingView {
         });
     }
 
+    private void addButtonClickListenerToLoadHistory() {
+        loadHistoryButton.addActionListener(e -> {
+            if (!clientController.hasClientConnectionStarted()) {
+                showErrorMessageDialog("You are not connected to the server");
+                return;
+            }
+            clientController.requestHistoryPage();
+        });
+    }
+
     private void addControllerForInputTextField() {
         inputTextField.addActionListener(e -> {
             clientController.sendMessageToCommonChat(inputTextField.getText());
@@ -157,6 +177,46 @@ public class ClientSwingView {
 
     protected void addMessageToCommonChat(String text) {
         clientsMessagesTextArea.append(text + "\n");
+        removeOldestLinesFromCommonChat();
+    }
+
+    protected void prependMessagesToCommonChat(List<String> texts) {
+        StringBuilder prependedText = new StringBuilder();
+        for (String text : texts) {
+            prependedText.append(text).append("\n");
+        }
+        int linesNumberBeforePrepend = clientsMessagesTextArea.getLineCount();
+        clientsMessagesTextArea.insert(prependedText.toString(), 0);
+        clientsMessagesTextArea.setCaretPosition(0);
+        prependedHistoryLinesNumber += clientsMessagesTextArea.getLineCount() - linesNumberBeforePrepend;
+        removeNewestHistoryLinesFromCommonChat();
+    }
+
+    private void removeNewestHistoryLinesFromCommonChat() {
+        if (prependedHistoryLinesNumber <= MAX_PREPENDED_HISTORY_LINES_NUMBER) {
+            return;
+        }
+
+        clientsMessagesTextArea.replaceRange("",
+                getCommonChatLineStartOffset(MAX_PREPENDED_HISTORY_LINES_NUMBER),
+                getCommonChatLineStartOffset(prependedHistoryLinesNumber));
+        prependedHistoryLinesNumber = MAX_PREPENDED_HISTORY_LINES_NUMBER;
+    }
+
+    private void removeOldestLinesFromCommonChat() {
+        int extraLinesNumber = clientsMessagesTextArea.getLineCount()
+                - MAX_CHAT_TEXT_AREA_LINES_NUMBER - prependedHistoryLinesNumber;
+        if (extraLinesNumber <= 0) {
+            return;
+        }
+
+        clientsMessagesTextArea.replaceRange("",
+                getCommonChatLineStartOffset(prependedHistoryLinesNumber),
+                getCommonChatLineStartOffset(prependedHistoryLinesNumber + extraLinesNumber));
+    }
+
+    private int getCommonChatLineStartOffset(int lineNumber) {
+        return clientsMessagesTextArea.getDocument().getDefaultRootElement().getElement(lineNumber).getStartOffset();
     }
 
     protected void clearUsernamesList() {
@@ -173,6 +233,10 @@ public class ClientSwingView {
         usernamesListModel.addElement("Online users:");
     }
 
+    protected void addUserToConnectedUsernamesList(String username) {
+        usernamesListModel.addElement(username);
+    }
+
     protected void removeNewUserFromConnectedUsernamesList(String username) {
         usernamesListModel.removeElement(username);
     }
@@ -0,0 +1,322 @@
+package client;
+
+import connection.Message;
+import connection.MessageCodecType;
+import connection.MessageType;
+import connection.StreamUserConnection;
+import connection.UserConnection;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import utilities.EpochNanosClock;
+import utilities.LatencyHistogram;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+public class LoadGenerator {
+    private static final String PROBE_PREFIX = "probe ";
+    private static final int PROGRESS_REPORT_INTERVAL_MILLIS_TIME = 5000;
+
+    private final LoadGeneratorSettings settings;
+
+    private final LatencyHistogram joinTimeHistogram = new LatencyHistogram();
+    private final LatencyHistogram relayLatencyHistogram = new LatencyHistogram();
+
+    private final LongAdder joinedConnectionsNumber = new LongAdder();
+    private final LongAdder failedConnectionsNumber = new LongAdder();
+    private final LongAdder sentMessagesNumber = new LongAdder();
+    private final LongAdder receivedMessagesNumber = new LongAdder();
+    private final LongAdder throttledNoticesNumber = new LongAdder();
+    private final LongAdder traceEchoesNumber = new LongAdder();
+
+    private final List<UserConnection> openedConnections = new CopyOnWriteArrayList<>();
+
+    private volatile boolean isRunning = true;
+
+    public LoadGenerator(LoadGeneratorSettings settings) {
+        this.settings = settings;
+    }
+
+    public static void main(String[] args) {
+        Options options = buildCommandLineOptions();
+        LoadGeneratorSettings settings;
+        try {
+            settings = parseSettings(new DefaultParser().parse(options, args));
+        } catch (ParseException | NumberFormatException exception) {
+            System.err.println(exception.getMessage());
+            new HelpFormatter().printHelp("LoadGenerator", options, true);
+            System.exit(1);
+            return;
+        }
+
+        LoadGenerator loadGenerator = new LoadGenerator(settings);
+        loadGenerator.run();
+        System.out.println(loadGenerator.buildReport());
+    }
+
+    private static Options buildCommandLineOptions() {
+        return new Options()
+                .addOption(Option.builder("H").longOpt("host").hasArg().desc("server host, localhost by default").build())
+                .addOption(Option.builder("p").longOpt("port").hasArg().required().desc("server port").build())
+                .addOption(Option.builder("w").longOpt("password").hasArg().required().desc("current session password").build())
+                .addOption(Option.builder("c").longOpt("connections").hasArg().desc("number of connections").build())
+                .addOption(Option.builder("r").longOpt("ramp-up").hasArg().desc("ramp-up of all connections, ms").build())
+                .addOption(Option.builder("m").longOpt("rate").hasArg().desc("messages per second of each connection").build())
+                .addOption(Option.builder("d").longOpt("duration").hasArg().desc("sending time after the ramp-up, ms").build())
+                .addOption(Option.builder("s").longOpt("size").hasArg().desc("message text size, bytes").build())
+                .addOption(Option.builder("u").longOpt("username-prefix").hasArg().desc("prefix of generated usernames").build())
+                .addOption(Option.builder("j").longOpt("json").desc("keep the JSON codec instead of the binary one").build())
+                .addOption(Option.builder("t").longOpt("trace-echo")
+                        .desc("stamp sent messages and echo the receive time of traced ones").build());
+    }
+
+    private static LoadGeneratorSettings parseSettings(CommandLine commandLine) throws ParseException {
+        LoadGeneratorSettings defaultSettings = LoadGeneratorSettings.builder().build();
+        LoadGeneratorSettings settings = LoadGeneratorSettings.builder()
+                .host(commandLine.getOptionValue("host", defaultSettings.getHost()))
+                .port(Integer.parseInt(commandLine.getOptionValue("port")))
+                .sessionPassword(commandLine.getOptionValue("password"))
+                .connectionsNumber(Integer.parseInt(commandLine.getOptionValue("connections",
+                        String.valueOf(defaultSettings.getConnectionsNumber()))))
+                .rampUpMillis(Long.parseLong(commandLine.getOptionValue("ramp-up",
+                        String.valueOf(defaultSettings.getRampUpMillis()))))
+                .messagesPerSecond(Double.parseDouble(commandLine.getOptionValue("rate",
+                        String.valueOf(defaultSettings.getMessagesPerSecond()))))
+                .durationMillis(Long.parseLong(commandLine.getOptionValue("duration",
+                        String.valueOf(defaultSettings.getDurationMillis()))))
+                .messageSizeBytes(Integer.parseInt(commandLine.getOptionValue("size",
+                        String.valueOf(defaultSettings.getMessageSizeBytes()))))
+                .usernamePrefix(commandLine.getOptionValue("username-prefix", defaultSettings.getUsernamePrefix()))
+                .binaryCodecRequested(!commandLine.hasOption("json"))
+                .traceEchoEnabled(commandLine.hasOption("trace-echo"))
+                .build();
+        validateSettings(settings);
+        return settings;
+    }
+
+    private static void validateSettings(LoadGeneratorSettings settings) throws ParseException {
+        if (settings.getPort() < 0 || settings.getPort() > 65535) {
+            throw new ParseException("The port must be from 0 to 65535");
+        }
+        if (settings.getConnectionsNumber() < 1) {
+            throw new ParseException("The number of connections must be positive");
+        }
+        if (settings.getRampUpMillis() < 0) {
+            throw new ParseException("The ramp-up must not be negative");
+        }
+        if (!(settings.getMessagesPerSecond() > 0) || Double.isInfinite(settings.getMessagesPerSecond())) {
+            throw new ParseException("The rate must be a positive number");
+        }
+        if (settings.getDurationMillis() < 0) {
+            throw new ParseException("The duration must not be negative");
+        }
+        if (settings.getMessageSizeBytes() < 0) {
+            throw new ParseException("The message size must not be negative");
+        }
+    }
+
+    public void run() {
+        long startNanos = System.nanoTime();
+        long rampUpNanos = TimeUnit.MILLISECONDS.toNanos(settings.getRampUpMillis());
+        long sendDeadlineNanos = startNanos + rampUpNanos + TimeUnit.MILLISECONDS.toNanos(settings.getDurationMillis());
+        long stopNanos = sendDeadlineNanos + TimeUnit.MILLISECONDS.toNanos(settings.getDrainMillis());
+
+        try (ExecutorService loadClientsExecutor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("load-client-", 0).factory())) {
+            long nextProgressReportNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(PROGRESS_REPORT_INTERVAL_MILLIS_TIME);
+            for (int i = 0; i < settings.getConnectionsNumber(); i++) {
+                parkUntil(startNanos + rampUpNanos * i / settings.getConnectionsNumber());
+                int clientIndex = i;
+                loadClientsExecutor.execute(() -> runLoadClient(clientIndex, sendDeadlineNanos));
+                nextProgressReportNanos = printProgressIfDue(nextProgressReportNanos);
+            }
+
+            while (System.nanoTime() < stopNanos) {
+                parkUntil(Math.min(stopNanos, nextProgressReportNanos));
+                nextProgressReportNanos = printProgressIfDue(nextProgressReportNanos);
+            }
+
+            isRunning = false;
+            closeOpenedConnections();
+        }
+    }
+
+    private void runLoadClient(int clientIndex, long sendDeadlineNanos) {
+        String username = settings.getUsernamePrefix() + clientIndex;
+        UserConnection userConnection;
+        long joinedNanos;
+        try {
+            long joinStartNanos = System.nanoTime();
+            userConnection = new StreamUserConnection(new Socket(settings.getHost(), settings.getPort()));
+            openedConnections.add(userConnection);
+            if (!joinChat(userConnection, username)) {
+                failedConnectionsNumber.increment();
+                userConnection.close();
+                return;
+            }
+            joinedNanos = System.nanoTime();
+            joinTimeHistogram.recordValue(joinedNanos - joinStartNanos);
+            joinedConnectionsNumber.increment();
+        } catch (IOException | RuntimeException exception) {
+            failedConnectionsNumber.increment();
+            return;
+        }
+
+        Thread.ofVirtual().name("load-receiver-" + clientIndex).start(() -> receiveMessages(userConnection, joinedNanos));
+        sendMessages(userConnection, sendDeadlineNanos);
+    }
+
+    private boolean joinChat(UserConnection userConnection, String username) throws IOException {
+        while (true) {
+            Message message = userConnection.receive();
+            if (MessageType.isTypeRequestUsername(message.getMessageType())) {
+                boolean isBinaryCodecAccepted = settings.isBinaryCodecRequested()
+                        && message.getCodecType() == MessageCodecType.BINARY;
+                userConnection.send(Message.builder()
+                        .messageType(MessageType.NEW_USERNAME)
+                        .messageText(username)
+                        .codecType(isBinaryCodecAccepted ? MessageCodecType.BINARY : null)
+                        .presenceDeltasRequested(true)
+                        .build());
+                if (isBinaryCodecAccepted) {
+                    userConnection.setCodec(MessageCodecType.BINARY.getCodec());
+                }
+            } else if (MessageType.isTypeRequestPassword(message.getMessageType())) {
+                userConnection.send(new Message(MessageType.NEW_PASSWORD, settings.getSessionPassword()));
+            } else if (MessageType.isTypeLoginAccepted(message.getMessageType())) {
+                return true;
+            } else if (MessageType.isTypeLoginError(message.getMessageType())) {
+                return false;
+            }
+        }
+    }
+
+    private void sendMessages(UserConnection userConnection, long sendDeadlineNanos) {
+        long sendIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / settings.getMessagesPerSecond());
+        long intendedSendNanos = System.nanoTime() + ThreadLocalRandom.current().nextLong(sendIntervalNanos);
+        String padding = "x".repeat(Math.max(0, settings.getMessageSizeBytes() - PROBE_PREFIX.length() - 20));
+
+        try {
+            while (isRunning && intendedSendNanos < sendDeadlineNanos) {
+                parkUntil(intendedSendNanos);
+                userConnection.send(Message.builder()
+                        .messageType(MessageType.TEXT_MESSAGE)
+                        .messageText(PROBE_PREFIX + intendedSendNanos + " " + padding)
+                        .timestampEpochNanos(settings.isTraceEchoEnabled() ? EpochNanosClock.now() : null)
+                        .build());
+                sentMessagesNumber.increment();
+                intendedSendNanos += sendIntervalNanos;
+            }
+        } catch (RuntimeException ignored) {
+        }
+    }
+
+    private void receiveMessages(UserConnection userConnection, long joinedNanos) {
+        try {
+            while (isRunning) {
+                Message message = userConnection.receive();
+                if (MessageType.isTypeTextMessage(message.getMessageType())) {
+                    if (settings.isTraceEchoEnabled() && message.isTraceRequested()) {
+                        sendTraceEcho(userConnection, message.getSequenceId());
+                    }
+                    long intendedSendNanos = parseProbeSendNanos(message.getMessageText());
+                    if (intendedSendNanos >= joinedNanos) {
+                        relayLatencyHistogram.recordValue(System.nanoTime() - intendedSendNanos);
+                        receivedMessagesNumber.increment();
+                    }
+                } else if (MessageType.isTypeThrottled(message.getMessageType())) {
+                    throttledNoticesNumber.increment();
+                }
+            }
+        } catch (IOException | RuntimeException ignored) {
+        }
+    }
+
+    private void sendTraceEcho(UserConnection userConnection, Long sequenceId) {
+        userConnection.send(Message.builder()
+                .messageType(MessageType.TRACE_ECHO)
+                .sequenceId(sequenceId)
+                .timestampEpochNanos(EpochNanosClock.now())
+                .build());
+        traceEchoesNumber.increment();
+    }
+
+    private static long parseProbeSendNanos(String messageText) {
+        int probeIndex = messageText == null ? -1 : messageText.indexOf(PROBE_PREFIX);
+        if (probeIndex < 0) {
+            return Long.MIN_VALUE;
+        }
+
+        int numberStart = probeIndex + PROBE_PREFIX.length();
+        int numberEnd = numberStart;
+        while (numberEnd < messageText.length()
+                && (Character.isDigit(messageText.charAt(numberEnd)) || messageText.charAt(numberEnd) == '-')) {
+            numberEnd++;
+        }
+        try {
+            return Long.parseLong(messageText, numberStart, numberEnd, 10);
+        } catch (NumberFormatException exception) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    private void closeOpenedConnections() {
+        for (UserConnection userConnection : openedConnections) {
+            try {
+                userConnection.send(new Message(MessageType.DISCONNECT));
+                userConnection.close();
+            } catch (IOException | RuntimeException ignored) {
+            }
+        }
+        openedConnections.clear();
+    }
+
+    private long printProgressIfDue(long nextProgressReportNanos) {
+        if (System.nanoTime() < nextProgressReportNanos) {
+            return nextProgressReportNanos;
+        }
+        System.out.println("Joined: " + joinedConnectionsNumber.sum()
+                + ", failed: " + failedConnectionsNumber.sum()
+                + ", sent: " + sentMessagesNumber.sum()
+                + ", received: " + receivedMessagesNumber.sum());
+        return nextProgressReportNanos + TimeUnit.MILLISECONDS.toNanos(PROGRESS_REPORT_INTERVAL_MILLIS_TIME);
+    }
+
+    public String buildReport() {
+        return "Connections joined: " + joinedConnectionsNumber.sum() + " of " + settings.getConnectionsNumber() + "\n" +
+                "Connections failed: " + failedConnectionsNumber.sum() + "\n" +
+                "Messages sent: " + sentMessagesNumber.sum() + "\n" +
+                "Messages received: " + receivedMessagesNumber.sum() + "\n" +
+                "Throttled notices: " + throttledNoticesNumber.sum() + "\n" +
+                "Trace echoes: " + traceEchoesNumber.sum() + "\n" +
+                "Join time: " + joinTimeHistogram.buildPercentilesReport(TimeUnit.NANOSECONDS, TimeUnit.MILLISECONDS) + "\n" +
+                "Relay latency: " + relayLatencyHistogram.buildPercentilesReport(TimeUnit.NANOSECONDS, TimeUnit.MILLISECONDS) + "\n";
+    }
+
+    public LatencyHistogram getJoinTimeHistogram() {
+        return joinTimeHistogram;
+    }
+
+    public LatencyHistogram getRelayLatencyHistogram() {
+        return relayLatencyHistogram;
+    }
+
+    private static void parkUntil(long deadlineNanos) {
+        long remainingNanos;
+        while ((remainingNanos = deadlineNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remainingNanos);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package client;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Builder
+@Getter
+public class LoadGeneratorSettings {
+    @Builder.Default
+    private final String host = "localhost";
+
+    private final int port;
+
+    private final String sessionPassword;
+
+    @Builder.Default
+    private final String usernamePrefix = "load-";
+
+    @Builder.Default
+    private final int connectionsNumber = 100;
+
+    @Builder.Default
+    private final long rampUpMillis = 5000;
+
+    @Builder.Default
+    private final double messagesPerSecond = 1;
+
+    @Builder.Default
+    private final long durationMillis = 30000;
+
+    @Builder.Default
+    private final long drainMillis = 2000;
+
+    @Builder.Default
+    private final int messageSizeBytes = 64;
+
+    @Builder.Default
+    private final boolean binaryCodecRequested = true;
+
+    @Builder.Default
+    private final boolean traceEchoEnabled = false;
+}
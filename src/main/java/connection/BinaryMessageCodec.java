@@ -0,0 +1,312 @@
+package connection;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+public class BinaryMessageCodec implements MessageCodec {
+    private static final int FRAME_LENGTH_PREFIX_SIZE = Integer.BYTES;
+    private static final int MIN_FRAME_LENGTH = 2;
+    private static final int MAX_VARINT_SIZE = 5;
+    private static final int MAX_PRESIZED_VALUES_NUMBER = 1024;
+
+    private static final int HAS_TEXT_FLAG = 1;
+    private static final int HAS_USERNAMES_FLAG = 1 << 1;
+    private static final int HAS_CODEC_TYPE_FLAG = 1 << 2;
+    private static final int HAS_SEQUENCE_ID_FLAG = 1 << 3;
+    private static final int HAS_TIMESTAMP_FLAG = 1 << 4;
+    private static final int HAS_HISTORY_PAGE_SIZE_FLAG = 1 << 5;
+    private static final int HAS_RECIPIENT_USERNAME_FLAG = 1 << 6;
+    private static final int HAS_ROOM_NAME_FLAG = 1 << 7;
+    private static final int HAS_REMOVED_USERNAMES_FLAG = 1 << 8;
+    private static final int HAS_PRESENCE_VERSION_FLAG = 1 << 9;
+    private static final int HAS_PREVIOUS_PRESENCE_VERSION_FLAG = 1 << 10;
+    private static final int TRACE_REQUESTED_FLAG = 1 << 11;
+    private static final int PRESENCE_DELTAS_REQUESTED_FLAG = 1 << 12;
+
+    private static final MessageType[] MESSAGE_TYPES = MessageType.values();
+
+    @Override
+    public MessageCodecType getType() {
+        return MessageCodecType.BINARY;
+    }
+
+    @Override
+    public byte[] encode(Message message) {
+        ByteArrayOutputStream frameBytes = new ByteArrayOutputStream(64);
+        frameBytes.writeBytes(new byte[FRAME_LENGTH_PREFIX_SIZE]);
+        frameBytes.write(message.getMessageType().ordinal());
+        writeVarint(frameBytes, buildFlags(message));
+
+        if (message.hasMessageText()) {
+            writeBytes(frameBytes, message.getMessageTextBytes());
+        }
+        if (message.getConnectedUsernames() != null) {
+            writeStrings(frameBytes, message.getConnectedUsernames());
+        }
+        if (message.getCodecType() != null) {
+            frameBytes.write(message.getCodecType().ordinal());
+        }
+        if (message.getSequenceId() != null) {
+            writeLong(frameBytes, message.getSequenceId());
+        }
+        if (message.getTimestampEpochNanos() != null) {
+            writeLong(frameBytes, message.getTimestampEpochNanos());
+        }
+        if (message.getHistoryPageSize() != null) {
+            writeVarint(frameBytes, message.getHistoryPageSize());
+        }
+        if (message.getRecipientUsername() != null) {
+            writeString(frameBytes, message.getRecipientUsername());
+        }
+        if (message.getRoomName() != null) {
+            writeString(frameBytes, message.getRoomName());
+        }
+        if (message.getRemovedUsernames() != null) {
+            writeStrings(frameBytes, message.getRemovedUsernames());
+        }
+        if (message.getPresenceVersion() != null) {
+            writeLong(frameBytes, message.getPresenceVersion());
+        }
+        if (message.getPreviousPresenceVersion() != null) {
+            writeLong(frameBytes, message.getPreviousPresenceVersion());
+        }
+
+        byte[] frame = frameBytes.toByteArray();
+        ByteBuffer.wrap(frame).putInt(0, frame.length - FRAME_LENGTH_PREFIX_SIZE);
+        return frame;
+    }
+
+    @Override
+    public int findFrameEnd(ByteBuffer buffer, int from, int scanFrom, int to) throws ProtocolException {
+        if (to - from < FRAME_LENGTH_PREFIX_SIZE) {
+            return -1;
+        }
+
+        int frameEnd = from + FRAME_LENGTH_PREFIX_SIZE + checkFrameLength(buffer.getInt(from));
+        return frameEnd <= to ? frameEnd : -1;
+    }
+
+    @Override
+    public Message decode(ByteBuffer buffer, int from, int to) throws ProtocolException {
+        FrameReader frameReader = new FrameReader(buffer, from + FRAME_LENGTH_PREFIX_SIZE, to);
+        Message.MessageBuilder messageBuilder = Message.builder()
+                .messageType(MESSAGE_TYPES[frameReader.readOrdinal(MESSAGE_TYPES.length)]);
+        int flags = frameReader.readVarint();
+
+        if ((flags & HAS_TEXT_FLAG) != 0) {
+            messageBuilder.messageTextBytes(frameReader.readBytes());
+        }
+        if ((flags & HAS_USERNAMES_FLAG) != 0) {
+            messageBuilder.connectedUsernames(frameReader.readStrings());
+        }
+        if ((flags & HAS_CODEC_TYPE_FLAG) != 0) {
+            messageBuilder.codecType(MessageCodecType.values()[frameReader.readOrdinal(MessageCodecType.values().length)]);
+        }
+        if ((flags & HAS_SEQUENCE_ID_FLAG) != 0) {
+            messageBuilder.sequenceId(frameReader.readLong());
+        }
+        if ((flags & HAS_TIMESTAMP_FLAG) != 0) {
+            messageBuilder.timestampEpochNanos(frameReader.readLong());
+        }
+        if ((flags & HAS_HISTORY_PAGE_SIZE_FLAG) != 0) {
+            messageBuilder.historyPageSize(frameReader.readVarint());
+        }
+        if ((flags & HAS_RECIPIENT_USERNAME_FLAG) != 0) {
+            messageBuilder.recipientUsername(frameReader.readString());
+        }
+        if ((flags & HAS_ROOM_NAME_FLAG) != 0) {
+            messageBuilder.roomName(frameReader.readString());
+        }
+        if ((flags & HAS_REMOVED_USERNAMES_FLAG) != 0) {
+            messageBuilder.removedUsernames(frameReader.readStrings());
+        }
+        if ((flags & HAS_PRESENCE_VERSION_FLAG) != 0) {
+            messageBuilder.presenceVersion(frameReader.readLong());
+        }
+        if ((flags & HAS_PREVIOUS_PRESENCE_VERSION_FLAG) != 0) {
+            messageBuilder.previousPresenceVersion(frameReader.readLong());
+        }
+        if ((flags & TRACE_REQUESTED_FLAG) != 0) {
+            messageBuilder.traceRequested(true);
+        }
+        if ((flags & PRESENCE_DELTAS_REQUESTED_FLAG) != 0) {
+            messageBuilder.presenceDeltasRequested(true);
+        }
+
+        return messageBuilder.build();
+    }
+
+    @Override
+    public Message readMessage(InputStream inputStream) throws IOException {
+        DataInputStream dataInputStream = new DataInputStream(inputStream);
+        int frameLength = checkFrameLength(dataInputStream.readInt());
+        byte[] frame = new byte[FRAME_LENGTH_PREFIX_SIZE + frameLength];
+        ByteBuffer.wrap(frame).putInt(frameLength);
+        dataInputStream.readFully(frame, FRAME_LENGTH_PREFIX_SIZE, frameLength);
+        return decode(ByteBuffer.wrap(frame), 0, frame.length);
+    }
+
+    private int checkFrameLength(int frameLength) throws ProtocolException {
+        if (frameLength < MIN_FRAME_LENGTH || frameLength > MAX_FRAME_LENGTH) {
+            throw new ProtocolException("Invalid binary frame length: " + frameLength);
+        }
+        return frameLength;
+    }
+
+    private int buildFlags(Message message) {
+        int flags = 0;
+        if (message.hasMessageText()) {
+            flags |= HAS_TEXT_FLAG;
+        }
+        if (message.getConnectedUsernames() != null) {
+            flags |= HAS_USERNAMES_FLAG;
+        }
+        if (message.getCodecType() != null) {
+            flags |= HAS_CODEC_TYPE_FLAG;
+        }
+        if (message.getSequenceId() != null) {
+            flags |= HAS_SEQUENCE_ID_FLAG;
+        }
+        if (message.getTimestampEpochNanos() != null) {
+            flags |= HAS_TIMESTAMP_FLAG;
+        }
+        if (message.getHistoryPageSize() != null) {
+            flags |= HAS_HISTORY_PAGE_SIZE_FLAG;
+        }
+        if (message.getRecipientUsername() != null) {
+            flags |= HAS_RECIPIENT_USERNAME_FLAG;
+        }
+        if (message.getRoomName() != null) {
+            flags |= HAS_ROOM_NAME_FLAG;
+        }
+        if (message.getRemovedUsernames() != null) {
+            flags |= HAS_REMOVED_USERNAMES_FLAG;
+        }
+        if (message.getPresenceVersion() != null) {
+            flags |= HAS_PRESENCE_VERSION_FLAG;
+        }
+        if (message.getPreviousPresenceVersion() != null) {
+            flags |= HAS_PREVIOUS_PRESENCE_VERSION_FLAG;
+        }
+        if (message.isTraceRequested()) {
+            flags |= TRACE_REQUESTED_FLAG;
+        }
+        if (message.isPresenceDeltasRequested()) {
+            flags |= PRESENCE_DELTAS_REQUESTED_FLAG;
+        }
+        return flags;
+    }
+
+    private void writeStrings(ByteArrayOutputStream frameBytes, Set<String> values) {
+        writeVarint(frameBytes, values.size());
+        for (String value : values) {
+            writeString(frameBytes, value);
+        }
+    }
+
+    private void writeString(ByteArrayOutputStream frameBytes, String value) {
+        writeBytes(frameBytes, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeBytes(ByteArrayOutputStream frameBytes, byte[] valueBytes) {
+        writeVarint(frameBytes, valueBytes.length);
+        frameBytes.writeBytes(valueBytes);
+    }
+
+    private void writeLong(ByteArrayOutputStream frameBytes, long value) {
+        for (int shift = Long.SIZE - Byte.SIZE; shift >= 0; shift -= Byte.SIZE) {
+            frameBytes.write((int) (value >>> shift));
+        }
+    }
+
+    private void writeVarint(ByteArrayOutputStream frameBytes, int value) {
+        while ((value & ~0x7F) != 0) {
+            frameBytes.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        frameBytes.write(value);
+    }
+
+    private static class FrameReader {
+        private final ByteBuffer buffer;
+        private final int end;
+        private int position;
+
+        private FrameReader(ByteBuffer buffer, int position, int end) {
+            this.buffer = buffer;
+            this.end = end;
+            this.position = position;
+        }
+
+        private byte readByte() throws ProtocolException {
+            checkRemaining(Byte.BYTES);
+            return buffer.get(position++);
+        }
+
+        private int readOrdinal(int valuesNumber) throws ProtocolException {
+            int ordinal = readByte() & 0xFF;
+            if (ordinal >= valuesNumber) {
+                throw new ProtocolException("Unknown ordinal " + ordinal + " in the binary frame");
+            }
+            return ordinal;
+        }
+
+        private byte[] readBytes() throws ProtocolException {
+            int length = readVarint();
+            checkRemaining(length);
+            byte[] value = new byte[length];
+            buffer.get(position, value);
+            position += length;
+            return value;
+        }
+
+        private long readLong() throws ProtocolException {
+            checkRemaining(Long.BYTES);
+            long value = buffer.getLong(position);
+            position += Long.BYTES;
+            return value;
+        }
+
+        private Set<String> readStrings() throws ProtocolException {
+            int valuesNumber = readVarint();
+            checkRemaining(valuesNumber);
+            Set<String> values = HashSet.newHashSet(Math.min(valuesNumber, MAX_PRESIZED_VALUES_NUMBER));
+            for (int i = 0; i < valuesNumber; i++) {
+                values.add(readString());
+            }
+            return values;
+        }
+
+        private String readString() throws ProtocolException {
+            return new String(readBytes(), StandardCharsets.UTF_8);
+        }
+
+        private int readVarint() throws ProtocolException {
+            int value = 0;
+            int shift = 0;
+            byte nextByte;
+            do {
+                if (shift == MAX_VARINT_SIZE * 7) {
+                    throw new ProtocolException("Too long varint in the binary frame");
+                }
+                nextByte = readByte();
+                value |= (nextByte & 0x7F) << shift;
+                shift += 7;
+            } while ((nextByte & 0x80) != 0);
+            return value;
+        }
+
+        private void checkRemaining(int bytesNumber) throws ProtocolException {
+            if (bytesNumber < 0 || bytesNumber > end - position) {
+                throw new ProtocolException("The binary frame is truncated or malformed");
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package connection;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ByteBufferPool {
+    private final int bufferSize;
+    private final int maxPooledBuffersNumber;
+
+    private final Queue<ByteBuffer> pooledBuffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooledBuffersNumber = new AtomicInteger();
+
+    public ByteBufferPool(int bufferSize, int maxPooledBuffersNumber) {
+        this.bufferSize = bufferSize;
+        this.maxPooledBuffersNumber = maxPooledBuffersNumber;
+    }
+
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = pooledBuffers.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        pooledBuffersNumber.decrementAndGet();
+        return buffer.clear();
+    }
+
+    public void release(ByteBuffer buffer) {
+        if (!buffer.isDirect() || buffer.capacity() != bufferSize) {
+            return;
+        }
+
+        if (pooledBuffersNumber.incrementAndGet() <= maxPooledBuffersNumber) {
+            pooledBuffers.offer(buffer);
+        } else {
+            pooledBuffersNumber.decrementAndGet();
+        }
+    }
+
+    public int getPooledBuffersNumber() {
+        return pooledBuffersNumber.get();
+    }
+}
@@ -0,0 +1,330 @@
+package connection;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class ChannelUserConnection extends UserConnection {
+    private static final int MAX_READS_PER_SELECTION_NUMBER = 16;
+    private static final int MAX_INBOUND_BUFFER_SIZE = Integer.BYTES + MessageCodec.MAX_FRAME_LENGTH;
+
+    private final SocketChannel userChannel;
+
+    private final Object inboundLock = new Object();
+    private final ByteBufferPool inboundBuffersPool;
+    private ByteBuffer inboundBuffer;
+    private int scannedFrameBytesNumber;
+
+    private final Object writeLock = new Object();
+    private final OutboundMessageQueue<ByteBuffer> outboundQueue;
+    private final ByteBuffer[] writeBatch;
+    private int writeBatchStart;
+    private int writeBatchEnd;
+    private final long flushDeadlineNanos;
+    private long lastFlushNanos;
+    private SelectionKey selectionKey;
+    private Thread eventLoopThread;
+
+    public ChannelUserConnection(SocketChannel userChannel, OutboundQueueSettings outboundQueueSettings,
+                                 ByteBufferPool inboundBuffersPool) {
+        this.userChannel = userChannel;
+        this.inboundBuffersPool = inboundBuffersPool;
+        this.outboundQueue = new OutboundMessageQueue<>(outboundQueueSettings);
+        this.writeBatch = new ByteBuffer[Math.max(1, outboundQueueSettings.getMaxFramesPerFlush())];
+        this.flushDeadlineNanos = TimeUnit.MICROSECONDS.toNanos(outboundQueueSettings.getFlushDeadlineMicros());
+        this.lastFlushNanos = System.nanoTime() - flushDeadlineNanos;
+    }
+
+    public SocketChannel getUserChannel() {
+        return userChannel;
+    }
+
+    @Override
+    public void send(EncodedMessage encodedMessage) {
+        ByteBuffer frame = ByteBuffer.wrap(encodedMessage.getBytes(codec));
+        try {
+            synchronized (writeLock) {
+                if (!hasPendingWrites() && (selectionKey == null || !isWriteBurstInProgress())) {
+                    recordWriteProgress();
+                    int writtenBytesNumber = userChannel.write(frame);
+                    flushStatistics.recordFlush(1);
+                    recordWrittenFrames(frame.hasRemaining() ? 0 : 1, writtenBytesNumber);
+                    lastFlushNanos = System.nanoTime();
+                    if (frame.hasRemaining()) {
+                        writeBatch[0] = frame;
+                        writeBatchStart = 0;
+                        writeBatchEnd = 1;
+                        updateInterestOps();
+                    }
+                    return;
+                }
+                recordWriteProgressIfIdle();
+            }
+
+            if (!outboundQueue.offer(frame, Thread.currentThread() != eventLoopThread)) {
+                disconnectSlowConsumer();
+                throw new IOException("The outbound queue of the user is full");
+            }
+
+            synchronized (writeLock) {
+                if (writeBatchStart == writeBatchEnd && outboundQueue.size() >= writeBatch.length) {
+                    flushPendingWrites();
+                } else {
+                    updateInterestOps();
+                }
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException());
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    @Override
+    public void enqueue(EncodedMessage encodedMessage) {
+        ByteBuffer frame = ByteBuffer.wrap(encodedMessage.getBytes(codec));
+        try {
+            synchronized (writeLock) {
+                recordWriteProgressIfIdle();
+                if (!outboundQueue.offer(frame, false)) {
+                    disconnectSlowConsumer();
+                    throw new IOException("The outbound queue of the user is full");
+                }
+                updateInterestOps();
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException());
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    @Override
+    public Message receive() throws IOException {
+        if (!userChannel.isBlocking()) {
+            throw new IllegalBlockingModeException();
+        }
+
+        synchronized (inboundLock) {
+            List<Message> messages = new ArrayList<>(1);
+            while (true) {
+                extractCompleteMessages(messages, 1);
+                if (!messages.isEmpty()) {
+                    return messages.get(0);
+                }
+                readFromChannel();
+            }
+        }
+    }
+
+    public List<Message> readAvailableMessages() throws IOException {
+        synchronized (inboundLock) {
+            List<Message> messages = new ArrayList<>();
+            boolean isInboundBufferFilled;
+            int readsNumber = 0;
+            do {
+                readFromChannel();
+                isInboundBufferFilled = !inboundBuffer.hasRemaining();
+                extractCompleteMessages(messages, Integer.MAX_VALUE);
+            } while (isInboundBufferFilled && ++readsNumber < MAX_READS_PER_SELECTION_NUMBER);
+            return messages;
+        }
+    }
+
+    public List<Message> takeBufferedMessages() throws ProtocolException {
+        synchronized (inboundLock) {
+            List<Message> messages = new ArrayList<>();
+            extractCompleteMessages(messages, Integer.MAX_VALUE);
+            return messages;
+        }
+    }
+
+    public void attachSelectionKey(SelectionKey selectionKey) {
+        synchronized (writeLock) {
+            this.selectionKey = selectionKey;
+            this.eventLoopThread = Thread.currentThread();
+            updateInterestOps();
+        }
+    }
+
+    public void flushPendingWrites() throws IOException {
+        synchronized (writeLock) {
+            while (true) {
+                if (writeBatchStart == writeBatchEnd) {
+                    writeBatchStart = 0;
+                    writeBatchEnd = outboundQueue.drainTo(writeBatch, writeBatch.length);
+                    if (writeBatchEnd == 0) {
+                        break;
+                    }
+                    flushStatistics.recordFlush(writeBatchEnd);
+                }
+
+                long writtenBytesNumber = userChannel.write(writeBatch, writeBatchStart, writeBatchEnd - writeBatchStart);
+                lastFlushNanos = System.nanoTime();
+                int writtenFramesNumber = 0;
+                while (writeBatchStart < writeBatchEnd && !writeBatch[writeBatchStart].hasRemaining()) {
+                    writeBatch[writeBatchStart++] = null;
+                    writtenFramesNumber++;
+                }
+                recordWrittenFrames(writtenFramesNumber, writtenBytesNumber);
+                if (writtenFramesNumber > 0) {
+                    recordWriteProgress();
+                }
+                if (writeBatchStart < writeBatchEnd) {
+                    break;
+                }
+            }
+            updateInterestOps();
+        }
+    }
+
+    @Override
+    public boolean areThereInSocketAnyData() {
+        synchronized (inboundLock) {
+            return inboundBuffer != null && inboundBuffer.position() > 0;
+        }
+    }
+
+    @Override
+    public int getOutboundQueueSize() {
+        return outboundQueue.size();
+    }
+
+    @Override
+    public long getDroppedFramesNumber() {
+        return outboundQueue.getDroppedFramesNumber();
+    }
+
+    @Override
+    public boolean awaitOutboundQueueSizeAtMost(int framesNumber, long timeoutMillis) throws InterruptedException {
+        return outboundQueue.awaitSizeAtMost(framesNumber, timeoutMillis);
+    }
+
+    @Override
+    public boolean hasPendingOutboundFrames() {
+        synchronized (writeLock) {
+            return hasPendingWrites();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        outboundQueue.clear();
+        try {
+            if (userChannel.isOpen()) {
+                userChannel.shutdownOutput();
+                userChannel.shutdownInput();
+            }
+        } finally {
+            userChannel.close();
+            synchronized (inboundLock) {
+                releaseInboundBuffer();
+            }
+        }
+    }
+
+    private int readFromChannel() throws IOException {
+        if (inboundBuffer == null) {
+            inboundBuffer = inboundBuffersPool.acquire();
+        } else if (!inboundBuffer.hasRemaining()) {
+            enlargeInboundBuffer();
+        }
+
+        int readBytesNumber = userChannel.read(inboundBuffer);
+        if (readBytesNumber < 0) {
+            throw new EOFException("The user closed the connection");
+        }
+        recordInboundBytes(readBytesNumber);
+        return readBytesNumber;
+    }
+
+    private void enlargeInboundBuffer() throws ProtocolException {
+        if (inboundBuffer.capacity() >= MAX_INBOUND_BUFFER_SIZE) {
+            throw new ProtocolException("The inbound message exceeds " + MessageCodec.MAX_FRAME_LENGTH + " bytes");
+        }
+
+        ByteBuffer enlargedBuffer = ByteBuffer.allocateDirect(Math.min(inboundBuffer.capacity() * 2, MAX_INBOUND_BUFFER_SIZE));
+        inboundBuffer.flip();
+        enlargedBuffer.put(inboundBuffer);
+        inboundBuffersPool.release(inboundBuffer);
+        inboundBuffer = enlargedBuffer;
+    }
+
+    private void extractCompleteMessages(List<Message> messages, int maxMessagesNumber) throws ProtocolException {
+        if (inboundBuffer == null) {
+            return;
+        }
+
+        int dataEnd = inboundBuffer.position();
+        int frameStart = 0;
+
+        while (messages.size() < maxMessagesNumber) {
+            MessageCodec currentCodec = codec;
+            int frameEnd = currentCodec.findFrameEnd(inboundBuffer, frameStart, frameStart + scannedFrameBytesNumber, dataEnd);
+            if (frameEnd < 0) {
+                scannedFrameBytesNumber = dataEnd - frameStart;
+                break;
+            }
+            messages.add(currentCodec.decode(inboundBuffer, frameStart, frameEnd));
+            frameStart = frameEnd;
+            scannedFrameBytesNumber = 0;
+        }
+
+        if (frameStart == dataEnd) {
+            releaseInboundBuffer();
+        } else if (frameStart > 0) {
+            inboundBuffer.flip();
+            inboundBuffer.position(frameStart);
+            inboundBuffer.compact();
+        }
+    }
+
+    private void releaseInboundBuffer() {
+        if (inboundBuffer != null) {
+            inboundBuffersPool.release(inboundBuffer);
+            inboundBuffer = null;
+        }
+        scannedFrameBytesNumber = 0;
+    }
+
+    private void disconnectSlowConsumer() {
+        outboundQueue.clear();
+        try {
+            userChannel.shutdownOutput();
+            userChannel.shutdownInput();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private boolean isWriteBurstInProgress() {
+        return System.nanoTime() - lastFlushNanos < flushDeadlineNanos;
+    }
+
+    private boolean hasPendingWrites() {
+        return writeBatchStart < writeBatchEnd || !outboundQueue.isEmpty();
+    }
+
+    private void updateInterestOps() {
+        if (selectionKey == null || !selectionKey.isValid()) {
+            return;
+        }
+
+        if (!hasPendingWrites()) {
+            selectionKey.interestOps(SelectionKey.OP_READ);
+        } else {
+            selectionKey.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            selectionKey.selector().wakeup();
+        }
+    }
+}
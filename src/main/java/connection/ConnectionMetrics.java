@@ -0,0 +1,25 @@
+package connection;
+
+import metrics.Counter;
+import metrics.MetricsRegistry;
+
+public class ConnectionMetrics {
+    private final Counter inboundBytesCounter;
+    private final Counter outboundFramesCounter;
+    private final Counter outboundBytesCounter;
+
+    public ConnectionMetrics(MetricsRegistry metricsRegistry) {
+        this.inboundBytesCounter = metricsRegistry.counter("chat_inbound_bytes_total", "Bytes read from user connections");
+        this.outboundFramesCounter = metricsRegistry.counter("chat_messages_out_total", "Messages written to user connections");
+        this.outboundBytesCounter = metricsRegistry.counter("chat_outbound_bytes_total", "Bytes written to user connections");
+    }
+
+    void recordInboundBytes(long bytesNumber) {
+        inboundBytesCounter.add(bytesNumber);
+    }
+
+    void recordWrittenFrames(int framesNumber, long bytesNumber) {
+        outboundFramesCounter.add(framesNumber);
+        outboundBytesCounter.add(bytesNumber);
+    }
+}
@@ -0,0 +1,27 @@
+package connection;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class EncodedMessage {
+    private final Message message;
+
+    private final AtomicReferenceArray<byte[]> encodedFrames = new AtomicReferenceArray<>(MessageCodecType.values().length);
+
+    public EncodedMessage(Message message) {
+        this.message = message;
+    }
+
+    public Message getMessage() {
+        return message;
+    }
+
+    public byte[] getBytes(MessageCodec codec) {
+        int codecIndex = codec.getType().ordinal();
+        byte[] frame = encodedFrames.get(codecIndex);
+        if (frame == null) {
+            frame = codec.encode(message);
+            encodedFrames.lazySet(codecIndex, frame);
+        }
+        return frame;
+    }
+}
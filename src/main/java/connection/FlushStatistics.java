@@ -0,0 +1,26 @@
+package connection;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class FlushStatistics {
+    private final LongAdder flushesNumber = new LongAdder();
+    private final LongAdder flushedFramesNumber = new LongAdder();
+
+    public void recordFlush(int framesNumber) {
+        flushesNumber.increment();
+        flushedFramesNumber.add(framesNumber);
+    }
+
+    public long getFlushesNumber() {
+        return flushesNumber.sum();
+    }
+
+    public long getFlushedFramesNumber() {
+        return flushedFramesNumber.sum();
+    }
+
+    public double getAverageFramesPerFlush() {
+        long flushes = getFlushesNumber();
+        return flushes == 0 ? 0 : (double) getFlushedFramesNumber() / flushes;
+    }
+}
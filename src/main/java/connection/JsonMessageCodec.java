@@ -0,0 +1,74 @@
+package connection;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public class JsonMessageCodec implements MessageCodec {
+    private static final byte MESSAGES_DELIMITER = '\n';
+
+    private final Gson gson = new Gson();
+
+    @Override
+    public MessageCodecType getType() {
+        return MessageCodecType.JSON;
+    }
+
+    @Override
+    public byte[] encode(Message message) {
+        message.materializeMessageText();
+        return (gson.toJson(message) + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int findFrameEnd(ByteBuffer buffer, int from, int scanFrom, int to) {
+        for (int i = Math.max(from, scanFrom); i < to; i++) {
+            if (buffer.get(i) == MESSAGES_DELIMITER) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Message decode(ByteBuffer buffer, int from, int to) throws ProtocolException {
+        byte[] jsonBytes = new byte[to - from - 1];
+        buffer.get(from, jsonBytes);
+        return parseMessage(new String(jsonBytes, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public Message readMessage(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream lineBytes = new ByteArrayOutputStream();
+        int nextByte;
+        while ((nextByte = inputStream.read()) != MESSAGES_DELIMITER) {
+            if (nextByte < 0) {
+                throw new EOFException("The connection was closed by the other side");
+            }
+            if (lineBytes.size() == MAX_FRAME_LENGTH) {
+                throw new ProtocolException("The JSON message exceeds " + MAX_FRAME_LENGTH + " bytes");
+            }
+            lineBytes.write(nextByte);
+        }
+        return parseMessage(lineBytes.toString(StandardCharsets.UTF_8));
+    }
+
+    private Message parseMessage(String json) throws ProtocolException {
+        try {
+            Message message = gson.fromJson(json, Message.class);
+            if (message == null) {
+                throw new ProtocolException("Empty JSON message");
+            }
+            return message;
+        } catch (JsonParseException exception) {
+            throw new ProtocolException("Malformed JSON message: " + exception.getMessage());
+        }
+    }
+}
@@ -1,29 +1,90 @@
 package connection;
 
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+import java.io.Serial;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import java.util.Set;
 
+@Builder
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
 public class Message implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private final MessageType messageType;
-    private final String messageText;
+    private String messageText;
+    @SuppressWarnings("serial")
     private final Set<String> connectedUsernames;
+    private final MessageCodecType codecType;
+    private final Long sequenceId;
+    private final Long timestampEpochNanos;
+    private final Integer historyPageSize;
+    private final String recipientUsername;
+    private final String roomName;
+    @SuppressWarnings("serial")
+    private final Set<String> removedUsernames;
+    private final Long presenceVersion;
+    private final Long previousPresenceVersion;
+    private final Boolean traceRequested;
+    private final Boolean presenceDeltasRequested;
+    private final transient byte[] messageTextBytes;
 
     public Message(MessageType messageType, String messageText) {
         this.messageText = messageText;
         this.messageType = messageType;
         this.connectedUsernames = null;
+        this.codecType = null;
+        this.sequenceId = null;
+        this.timestampEpochNanos = null;
+        this.historyPageSize = null;
+        this.recipientUsername = null;
+        this.roomName = null;
+        this.removedUsernames = null;
+        this.presenceVersion = null;
+        this.previousPresenceVersion = null;
+        this.traceRequested = null;
+        this.presenceDeltasRequested = null;
+        this.messageTextBytes = null;
     }
 
     public Message(MessageType messageType, Set<String> connectedUsernames) {
         this.messageType = messageType;
         this.messageText = null;
         this.connectedUsernames = connectedUsernames;
+        this.codecType = null;
+        this.sequenceId = null;
+        this.timestampEpochNanos = null;
+        this.historyPageSize = null;
+        this.recipientUsername = null;
+        this.roomName = null;
+        this.removedUsernames = null;
+        this.presenceVersion = null;
+        this.previousPresenceVersion = null;
+        this.traceRequested = null;
+        this.presenceDeltasRequested = null;
+        this.messageTextBytes = null;
     }
 
     public Message(MessageType messageType) {
         this.messageType = messageType;
         this.messageText = null;
         this.connectedUsernames = null;
+        this.codecType = null;
+        this.sequenceId = null;
+        this.timestampEpochNanos = null;
+        this.historyPageSize = null;
+        this.recipientUsername = null;
+        this.roomName = null;
+        this.removedUsernames = null;
+        this.presenceVersion = null;
+        this.previousPresenceVersion = null;
+        this.traceRequested = null;
+        this.presenceDeltasRequested = null;
+        this.messageTextBytes = null;
     }
 
     public MessageType getMessageType() {
@@ -35,7 +96,83 @@ public class Message implements Serializable {
     }
 
     public String getMessageText() {
+        if (messageText == null && messageTextBytes != null) {
+            messageText = new String(messageTextBytes, StandardCharsets.UTF_8);
+        }
         return messageText;
     }
 
+    public byte[] getMessageTextBytes() {
+        if (messageTextBytes != null) {
+            return messageTextBytes;
+        }
+        return messageText == null ? null : messageText.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public boolean hasMessageText() {
+        return messageText != null || messageTextBytes != null;
+    }
+
+    public boolean isMessageTextBlank() {
+        if (messageText != null) {
+            return messageText.trim().isEmpty();
+        }
+        if (messageTextBytes != null) {
+            for (byte textByte : messageTextBytes) {
+                if ((textByte & 0xFF) > ' ') {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    void materializeMessageText() {
+        getMessageText();
+    }
+
+    public MessageCodecType getCodecType() {
+        return codecType;
+    }
+
+    public Long getSequenceId() {
+        return sequenceId;
+    }
+
+    public Long getTimestampEpochNanos() {
+        return timestampEpochNanos;
+    }
+
+    public Integer getHistoryPageSize() {
+        return historyPageSize;
+    }
+
+    public String getRecipientUsername() {
+        return recipientUsername;
+    }
+
+    public String getRoomName() {
+        return roomName;
+    }
+
+    public Set<String> getRemovedUsernames() {
+        return removedUsernames;
+    }
+
+    public Long getPresenceVersion() {
+        return presenceVersion;
+    }
+
+    public Long getPreviousPresenceVersion() {
+        return previousPresenceVersion;
+    }
+
+    public boolean isTraceRequested() {
+        return Boolean.TRUE.equals(traceRequested);
+    }
+
+    public boolean isPresenceDeltasRequested() {
+        return Boolean.TRUE.equals(presenceDeltasRequested);
+    }
+
 }
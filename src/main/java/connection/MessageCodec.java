@@ -0,0 +1,20 @@
+package connection;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+
+public interface MessageCodec {
+    int MAX_FRAME_LENGTH = 16 * 1024 * 1024;
+
+    MessageCodecType getType();
+
+    byte[] encode(Message message);
+
+    int findFrameEnd(ByteBuffer buffer, int from, int scanFrom, int to) throws ProtocolException;
+
+    Message decode(ByteBuffer buffer, int from, int to) throws ProtocolException;
+
+    Message readMessage(InputStream inputStream) throws IOException;
+}
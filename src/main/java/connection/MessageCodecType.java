@@ -0,0 +1,16 @@
+package connection;
+
+public enum MessageCodecType {
+    JSON(new JsonMessageCodec()),
+    BINARY(new BinaryMessageCodec());
+
+    private final MessageCodec codec;
+
+    MessageCodecType(MessageCodec codec) {
+        this.codec = codec;
+    }
+
+    public MessageCodec getCodec() {
+        return codec;
+    }
+}
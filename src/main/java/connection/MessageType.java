@@ -12,7 +12,21 @@ public enum MessageType {
     DISCONNECT,
     USER_DELETED,
     NOTIFY_ADD,
-    NOTIFY_REMOVE;
+    NOTIFY_REMOVE,
+    HISTORY_REQUEST,
+    HISTORY_RESPONSE,
+    DIRECT_MESSAGE,
+    DIRECT_MESSAGE_FAILED,
+    JOIN_ROOM,
+    LEAVE_ROOM,
+    PRESENCE_SNAPSHOT,
+    PRESENCE_DELTA,
+    PRESENCE_RESYNC_REQUEST,
+    THROTTLED,
+    NOTIFY_LAGGING,
+    NOTIFY_RECOVERED,
+    TRACE_ECHO,
+    ROOM_REQUEST_FAILED;
 
     public static boolean isTypeNewUsername(MessageType messageType) {
         return messageType == NEW_USERNAME;
@@ -62,4 +76,60 @@ public enum MessageType {
         return messageType == USER_DELETED;
     }
 
+    public static boolean isTypeHistoryRequest(MessageType messageType) {
+        return messageType == HISTORY_REQUEST;
+    }
+
+    public static boolean isTypeHistoryResponse(MessageType messageType) {
+        return messageType == HISTORY_RESPONSE;
+    }
+
+    public static boolean isTypeDirectMessage(MessageType messageType) {
+        return messageType == DIRECT_MESSAGE;
+    }
+
+    public static boolean isTypeDirectMessageFailed(MessageType messageType) {
+        return messageType == DIRECT_MESSAGE_FAILED;
+    }
+
+    public static boolean isTypeJoinRoom(MessageType messageType) {
+        return messageType == JOIN_ROOM;
+    }
+
+    public static boolean isTypeLeaveRoom(MessageType messageType) {
+        return messageType == LEAVE_ROOM;
+    }
+
+    public static boolean isTypePresenceSnapshot(MessageType messageType) {
+        return messageType == PRESENCE_SNAPSHOT;
+    }
+
+    public static boolean isTypePresenceDelta(MessageType messageType) {
+        return messageType == PRESENCE_DELTA;
+    }
+
+    public static boolean isTypePresenceResyncRequest(MessageType messageType) {
+        return messageType == PRESENCE_RESYNC_REQUEST;
+    }
+
+    public static boolean isTypeThrottled(MessageType messageType) {
+        return messageType == THROTTLED;
+    }
+
+    public static boolean isTypeNotifyLagging(MessageType messageType) {
+        return messageType == NOTIFY_LAGGING;
+    }
+
+    public static boolean isTypeNotifyRecovered(MessageType messageType) {
+        return messageType == NOTIFY_RECOVERED;
+    }
+
+    public static boolean isTypeTraceEcho(MessageType messageType) {
+        return messageType == TRACE_ECHO;
+    }
+
+    public static boolean isTypeRoomRequestFailed(MessageType messageType) {
+        return messageType == ROOM_REQUEST_FAILED;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,132 @@
+package connection;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class OutboundMessageQueue<T> {
+    private final OutboundQueueSettings settings;
+
+    private final Deque<T> frames = new ArrayDeque<>();
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+
+    private final LongAdder droppedFramesNumber = new LongAdder();
+
+    public OutboundMessageQueue(OutboundQueueSettings settings) {
+        this.settings = settings;
+    }
+
+    public boolean offer(T frame, boolean canBlock) throws InterruptedException {
+        lock.lock();
+        try {
+            if (frames.size() >= settings.getCapacity() && !makeRoomForNewFrame(canBlock)) {
+                return false;
+            }
+            frames.addLast(frame);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public T poll() {
+        lock.lock();
+        try {
+            T frame = frames.pollFirst();
+            if (frame != null) {
+                notFull.signalAll();
+            }
+            return frame;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int drainTo(T[] batch, int maxFramesNumber) {
+        lock.lock();
+        try {
+            int framesNumber = 0;
+            T frame;
+            while (framesNumber < maxFramesNumber && (frame = frames.pollFirst()) != null) {
+                batch[framesNumber++] = frame;
+            }
+            if (framesNumber > 0) {
+                notFull.signalAll();
+            }
+            return framesNumber;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean awaitSizeAtMost(int framesNumber, long timeoutMillis) throws InterruptedException {
+        lock.lock();
+        try {
+            long remainingNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            while (frames.size() > framesNumber && remainingNanos > 0) {
+                remainingNanos = notFull.awaitNanos(remainingNanos);
+            }
+            return frames.size() <= framesNumber;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        lock.lock();
+        try {
+            return frames.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return frames.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            frames.clear();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getDroppedFramesNumber() {
+        return droppedFramesNumber.sum();
+    }
+
+    private boolean makeRoomForNewFrame(boolean canBlock) throws InterruptedException {
+        switch (settings.getSlowConsumerPolicy()) {
+            case DROP_OLDEST -> {
+                frames.pollFirst();
+                droppedFramesNumber.increment();
+                return true;
+            }
+            case BLOCK_WITH_TIMEOUT -> {
+                long remainingNanos = TimeUnit.MILLISECONDS.toNanos(settings.getBlockTimeoutMillis());
+                while (canBlock && frames.size() >= settings.getCapacity() && remainingNanos > 0) {
+                    remainingNanos = notFull.awaitNanos(remainingNanos);
+                }
+                return frames.size() < settings.getCapacity();
+            }
+            default -> {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package connection;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Builder
+@Getter
+public class OutboundQueueSettings {
+    @Builder.Default
+    private final int capacity = 1024;
+
+    @Builder.Default
+    private final SlowConsumerPolicy slowConsumerPolicy = SlowConsumerPolicy.DROP_OLDEST;
+
+    @Builder.Default
+    private final long blockTimeoutMillis = 1000;
+
+    @Builder.Default
+    private final int maxFramesPerFlush = 64;
+
+    @Builder.Default
+    private final long flushDeadlineMicros = 200;
+}
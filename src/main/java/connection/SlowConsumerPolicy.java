@@ -0,0 +1,7 @@
+package connection;
+
+public enum SlowConsumerPolicy {
+    DROP_OLDEST,
+    DISCONNECT,
+    BLOCK_WITH_TIMEOUT
+}
@@ -0,0 +1,263 @@
+package connection;
+
+import java.io.*;
+import java.net.Socket;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class StreamUserConnection extends UserConnection {
+    private final Socket userSocket;
+
+    private final OutputStream outputStream;
+    private final CountingInputStream inputStream;
+
+    private final Lock writeLock = new ReentrantLock();
+    private final Lock readLock = new ReentrantLock();
+
+    private final OutboundMessageQueue<EncodedMessage> outboundQueue;
+    private final Executor writersExecutor;
+    private final AtomicBoolean isDrainScheduled = new AtomicBoolean(false);
+    private final AtomicBoolean isClosed = new AtomicBoolean(false);
+
+    private final EncodedMessage[] outboundBatch;
+    private final long flushDeadlineNanos;
+    private long lastFlushNanos;
+
+    public StreamUserConnection(Socket userSocket) throws IOException {
+        this(userSocket, null, null);
+    }
+
+    public StreamUserConnection(Socket userSocket, OutboundQueueSettings outboundQueueSettings, Executor writersExecutor) throws IOException {
+        this.userSocket = userSocket;
+        this.outputStream = new BufferedOutputStream(userSocket.getOutputStream());
+        this.inputStream = new CountingInputStream(new BufferedInputStream(userSocket.getInputStream()));
+        this.outboundQueue = outboundQueueSettings == null ? null : new OutboundMessageQueue<>(outboundQueueSettings);
+        this.writersExecutor = writersExecutor;
+        this.outboundBatch = outboundQueueSettings == null ? null : new EncodedMessage[Math.max(1, outboundQueueSettings.getMaxFramesPerFlush())];
+        this.flushDeadlineNanos = outboundQueueSettings == null ? 0 : TimeUnit.MICROSECONDS.toNanos(outboundQueueSettings.getFlushDeadlineMicros());
+        this.lastFlushNanos = System.nanoTime() - flushDeadlineNanos;
+    }
+
+    @Override
+    public void send(EncodedMessage encodedMessage) {
+        if (outboundQueue == null) {
+            writeEncodedMessage(encodedMessage);
+            return;
+        }
+
+        recordWriteProgressIfIdle();
+        try {
+            if (!outboundQueue.offer(encodedMessage, true)) {
+                disconnectSlowConsumer();
+                throw new UncheckedIOException(new IOException("The outbound queue of the user is full"));
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException());
+        }
+        scheduleOutboundQueueDrain();
+    }
+
+    @Override
+    public void enqueue(EncodedMessage encodedMessage) {
+        if (outboundQueue == null) {
+            writeEncodedMessage(encodedMessage);
+            return;
+        }
+
+        recordWriteProgressIfIdle();
+        try {
+            if (!outboundQueue.offer(encodedMessage, false)) {
+                disconnectSlowConsumer();
+                throw new UncheckedIOException(new IOException("The outbound queue of the user is full"));
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException());
+        }
+        scheduleOutboundQueueDrain();
+    }
+
+    @Override
+    public Message receive() throws IOException {
+        readLock.lock();
+        try {
+            long readBytesNumberBefore = inputStream.getReadBytesNumber();
+            Message message = codec.readMessage(inputStream);
+            recordInboundBytes(inputStream.getReadBytesNumber() - readBytesNumberBefore);
+            return message;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean areThereInSocketAnyData() throws IOException {
+        readLock.lock();
+        try {
+            return inputStream.available() > 0;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public int getOutboundQueueSize() {
+        return outboundQueue == null ? 0 : outboundQueue.size();
+    }
+
+    @Override
+    public long getDroppedFramesNumber() {
+        return outboundQueue == null ? 0 : outboundQueue.getDroppedFramesNumber();
+    }
+
+    @Override
+    public boolean awaitOutboundQueueSizeAtMost(int framesNumber, long timeoutMillis) throws InterruptedException {
+        return outboundQueue == null || outboundQueue.awaitSizeAtMost(framesNumber, timeoutMillis);
+    }
+
+    @Override
+    public boolean hasPendingOutboundFrames() {
+        return outboundQueue != null && (isDrainScheduled.get() || !outboundQueue.isEmpty());
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!isClosed.compareAndSet(false, true)) {
+            return;
+        }
+
+        if (outboundQueue != null) {
+            outboundQueue.clear();
+        }
+        try {
+            if (!userSocket.isClosed()) {
+                userSocket.shutdownOutput();
+                userSocket.shutdownInput();
+            }
+        } finally {
+            userSocket.close();
+        }
+    }
+
+    private void writeEncodedMessage(EncodedMessage encodedMessage) {
+        writeLock.lock();
+        try {
+            byte[] frame = encodedMessage.getBytes(codec);
+            outputStream.write(frame);
+            outputStream.flush();
+            flushStatistics.recordFlush(1);
+            recordWrittenFrames(1, frame.length);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void scheduleOutboundQueueDrain() {
+        if (isDrainScheduled.compareAndSet(false, true)) {
+            writersExecutor.execute(this::drainOutboundQueue);
+        }
+    }
+
+    private void drainOutboundQueue() {
+        while (true) {
+            try {
+                while (writeOutboundBatch()) {
+                }
+            } catch (UncheckedIOException exception) {
+                disconnectSlowConsumer();
+                return;
+            }
+
+            isDrainScheduled.set(false);
+            if (outboundQueue.isEmpty() || !isDrainScheduled.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    private boolean writeOutboundBatch() {
+        writeLock.lock();
+        try {
+            boolean isWriteBurstInProgress = System.nanoTime() - lastFlushNanos < flushDeadlineNanos;
+            long batchDeadlineNanos = System.nanoTime() + flushDeadlineNanos;
+            int batchFramesNumber = 0;
+            long batchBytesNumber = 0;
+
+            while (batchFramesNumber < outboundBatch.length) {
+                int framesNumber = outboundQueue.drainTo(outboundBatch, outboundBatch.length - batchFramesNumber);
+                for (int i = 0; i < framesNumber; i++) {
+                    byte[] frame = outboundBatch[i].getBytes(codec);
+                    outputStream.write(frame);
+                    batchBytesNumber += frame.length;
+                    outboundBatch[i] = null;
+                }
+                batchFramesNumber += framesNumber;
+
+                if (framesNumber == 0) {
+                    long remainingNanos = batchDeadlineNanos - System.nanoTime();
+                    if (!isWriteBurstInProgress || batchFramesNumber == 0 || remainingNanos <= 0) {
+                        break;
+                    }
+                    LockSupport.parkNanos(remainingNanos);
+                }
+            }
+
+            if (batchFramesNumber > 0) {
+                outputStream.flush();
+                recordWriteProgress();
+                flushStatistics.recordFlush(batchFramesNumber);
+                recordWrittenFrames(batchFramesNumber, batchBytesNumber);
+                lastFlushNanos = System.nanoTime();
+            }
+            return batchFramesNumber > 0;
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void disconnectSlowConsumer() {
+        try {
+            close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private long readBytesNumber;
+
+        private CountingInputStream(InputStream inputStream) {
+            super(inputStream);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int readByte = super.read();
+            if (readByte >= 0) {
+                readBytesNumber++;
+            }
+            return readByte;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int readBytes = super.read(bytes, offset, length);
+            if (readBytes > 0) {
+                readBytesNumber += readBytes;
+            }
+            return readBytes;
+        }
+
+        private long getReadBytesNumber() {
+            return readBytesNumber;
+        }
+    }
+}
@@ -1,50 +1,106 @@
 package connection;
 
-import com.google.gson.Gson;
+import java.io.Closeable;
+import java.io.IOException;
 
-import java.io.*;
-import java.net.Socket;
+public abstract class UserConnection implements Closeable {
+    protected volatile MessageCodec codec = MessageCodecType.JSON.getCodec();
 
-public class UserConnection implements Closeable {
-    private final Socket userSocket;
+    protected final FlushStatistics flushStatistics = new FlushStatistics();
 
-    private final PrintWriter printWriter;
-    private final BufferedReader bufferedReader;
+    protected volatile UserMetaInfo userMetaInfo;
 
-    private final Gson gson = new Gson();
+    protected volatile ConnectionMetrics connectionMetrics;
 
-    public UserConnection(Socket userSocket) throws IOException {
-        this.userSocket = userSocket;
-        this.printWriter = new PrintWriter(new DataOutputStream(userSocket.getOutputStream()));
-        this.bufferedReader = new BufferedReader(new InputStreamReader(new DataInputStream(userSocket.getInputStream())));
+    private volatile boolean isPresenceDeltasEnabled = false;
+
+    private volatile long lastWriteProgressNanos = System.nanoTime();
+
+    public MessageCodec getCodec() {
+        return codec;
     }
 
-    public void send(Message message) {
-        synchronized (printWriter) {
-            String jsonMessage = gson.toJson(message);
-            printWriter.write(jsonMessage);
-            printWriter.write("\n");
-            printWriter.flush();
+    public void setCodec(MessageCodec codec) {
+        this.codec = codec;
+    }
+
+    public boolean isPresenceDeltasEnabled() {
+        return isPresenceDeltasEnabled;
+    }
+
+    public void setPresenceDeltasEnabled(boolean isPresenceDeltasEnabled) {
+        this.isPresenceDeltasEnabled = isPresenceDeltasEnabled;
+    }
+
+    public FlushStatistics getFlushStatistics() {
+        return flushStatistics;
+    }
+
+    public void setUserMetaInfo(UserMetaInfo userMetaInfo) {
+        this.userMetaInfo = userMetaInfo;
+    }
+
+    public void setConnectionMetrics(ConnectionMetrics connectionMetrics) {
+        this.connectionMetrics = connectionMetrics;
+    }
+
+    protected void recordInboundBytes(long bytesNumber) {
+        UserMetaInfo currentUserMetaInfo = userMetaInfo;
+        if (currentUserMetaInfo != null) {
+            currentUserMetaInfo.addInboundBytes(bytesNumber);
+        }
+        ConnectionMetrics currentConnectionMetrics = connectionMetrics;
+        if (currentConnectionMetrics != null) {
+            currentConnectionMetrics.recordInboundBytes(bytesNumber);
         }
     }
 
-    public Message receive() throws IOException {
-        synchronized (bufferedReader) {
-            String jsonMessage = bufferedReader.readLine();
-            return gson.fromJson(jsonMessage, Message.class);
+    protected void recordWrittenFrames(int framesNumber, long bytesNumber) {
+        UserMetaInfo currentUserMetaInfo = userMetaInfo;
+        if (currentUserMetaInfo != null) {
+            currentUserMetaInfo.addReceivedMessages(framesNumber, bytesNumber);
         }
+        ConnectionMetrics currentConnectionMetrics = connectionMetrics;
+        if (currentConnectionMetrics != null) {
+            currentConnectionMetrics.recordWrittenFrames(framesNumber, bytesNumber);
+        }
+    }
+
+    protected void recordWriteProgress() {
+        lastWriteProgressNanos = System.nanoTime();
     }
 
-    public boolean areThereInSocketAnyData() throws IOException {
-        synchronized (bufferedReader) {
-            return bufferedReader.ready();
+    protected void recordWriteProgressIfIdle() {
+        if (!hasPendingOutboundFrames()) {
+            recordWriteProgress();
         }
     }
 
-    @Override
-    public void close() throws IOException {
-        userSocket.shutdownOutput();
-        userSocket.shutdownInput();
-        userSocket.close();
+    public long getOutboundLagNanos() {
+        return hasPendingOutboundFrames() ? System.nanoTime() - lastWriteProgressNanos : 0;
+    }
+
+    public void send(Message message) {
+        send(new EncodedMessage(message));
+    }
+
+    public abstract void send(EncodedMessage encodedMessage);
+
+    public void enqueue(Message message) {
+        enqueue(new EncodedMessage(message));
     }
+
+    public abstract void enqueue(EncodedMessage encodedMessage);
+
+    public abstract Message receive() throws IOException;
+
+    public abstract boolean areThereInSocketAnyData() throws IOException;
+
+    public abstract int getOutboundQueueSize();
+
+    public abstract long getDroppedFramesNumber();
+
+    public abstract boolean awaitOutboundQueueSizeAtMost(int framesNumber, long timeoutMillis) throws InterruptedException;
+
+    public abstract boolean hasPendingOutboundFrames();
 }
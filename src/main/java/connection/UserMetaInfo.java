@@ -1,28 +1,89 @@
 package connection;
 
 import lombok.Builder;
+import utilities.EpochNanosClock;
 import utilities.FormatMessagesBuilder;
 
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
 @Builder
 public class UserMetaInfo {
     private final String username;
 
-    private final String firstConnectionTime;
+    private final long firstConnectionEpochNanos = EpochNanosClock.now();
+
+    private final AtomicLong lastMessageEpochNanos = new AtomicLong(firstConnectionEpochNanos);
+
+    private final LongAdder allSentMessagesNumber = new LongAdder();
+
+    private final LongAdder allReceivedMessagesNumber = new LongAdder();
 
-    private String lastMessageTime;
+    private final LongAdder inboundBytesNumber = new LongAdder();
 
-    private int allSentMessagesNumber;
+    private final LongAdder outboundBytesNumber = new LongAdder();
+
+    private final LongAdder throttledMessagesNumber = new LongAdder();
 
     public void updateLastMessageTime() {
-        lastMessageTime = FormatMessagesBuilder.buildDateNow();
-        allSentMessagesNumber++;
+        lastMessageEpochNanos.set(EpochNanosClock.now());
+        allSentMessagesNumber.increment();
+    }
+
+    public void addReceivedMessages(int messagesNumber, long bytesNumber) {
+        allReceivedMessagesNumber.add(messagesNumber);
+        outboundBytesNumber.add(bytesNumber);
+    }
+
+    public void addInboundBytes(long bytesNumber) {
+        inboundBytesNumber.add(bytesNumber);
+    }
+
+    public void addThrottledMessage() {
+        throttledMessagesNumber.increment();
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public long getFirstConnectionEpochNanos() {
+        return firstConnectionEpochNanos;
+    }
+
+    public long getLastMessageEpochNanos() {
+        return lastMessageEpochNanos.get();
+    }
+
+    public long getAllSentMessagesNumber() {
+        return allSentMessagesNumber.sum();
+    }
+
+    public long getAllReceivedMessagesNumber() {
+        return allReceivedMessagesNumber.sum();
+    }
+
+    public long getInboundBytesNumber() {
+        return inboundBytesNumber.sum();
+    }
+
+    public long getOutboundBytesNumber() {
+        return outboundBytesNumber.sum();
+    }
+
+    public long getThrottledMessagesNumber() {
+        return throttledMessagesNumber.sum();
     }
 
     @Override
     public String toString() {
         return "Username: " + username + "\n" +
-                "First connection time: " + firstConnectionTime + "\n" +
-                "Last message time: " + lastMessageTime + "\n" +
-                "All sent message number: " + allSentMessagesNumber + "\n";
+                "First connection time: " + FormatMessagesBuilder.buildDateFromEpochNanos(firstConnectionEpochNanos) + "\n" +
+                "Last message time: " + FormatMessagesBuilder.buildDateFromEpochNanos(getLastMessageEpochNanos()) + "\n" +
+                "All sent message number: " + getAllSentMessagesNumber() + "\n" +
+                "All received message number: " + getAllReceivedMessagesNumber() + "\n" +
+                "Bytes in: " + getInboundBytesNumber() + "\n" +
+                "Bytes out: " + getOutboundBytesNumber() + "\n" +
+                "Throttled messages: " + getThrottledMessagesNumber() + "\n";
     }
 }
@@ -0,0 +1,134 @@
+package history;
+
+import connection.EncodedMessage;
+import connection.Message;
+import connection.MessageCodecType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+public final class ChatHistoryWriter extends Thread {
+    private static final int MAX_RECORDS_PER_BATCH_NUMBER = 1024;
+
+    private final HistoryLog historyLog;
+    private final HistorySettings settings;
+    private final Consumer<Exception> failuresHandler;
+
+    private final BlockingQueue<EncodedMessage> pendingRecords;
+
+    private final LongAdder appendedRecordsNumber = new LongAdder();
+    private final LongAdder droppedRecordsNumber = new LongAdder();
+    private final LongAdder fsyncsNumber = new LongAdder();
+
+    private volatile boolean isRunning = true;
+
+    public ChatHistoryWriter(HistoryLog historyLog, HistorySettings settings, Consumer<Exception> failuresHandler) {
+        super("chat-history-writer");
+        this.historyLog = historyLog;
+        this.settings = settings;
+        this.failuresHandler = failuresHandler;
+        this.pendingRecords = new ArrayBlockingQueue<>(settings.getWriterQueueCapacity());
+        setDaemon(true);
+    }
+
+    public HistoryLog getHistoryLog() {
+        return historyLog;
+    }
+
+    public boolean offer(EncodedMessage encodedMessage) {
+        if (!isRunning || !pendingRecords.offer(encodedMessage)) {
+            droppedRecordsNumber.increment();
+            return false;
+        }
+        return true;
+    }
+
+    public void shutdown() {
+        isRunning = false;
+        try {
+            join();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        List<EncodedMessage> batch = new ArrayList<>(MAX_RECORDS_PER_BATCH_NUMBER);
+        long fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(settings.getFsyncIntervalMillis());
+        long lastFsyncNanos = System.nanoTime();
+        int unsyncedRecordsNumber = 0;
+
+        while (isRunning || !pendingRecords.isEmpty()) {
+            try {
+                EncodedMessage firstRecord = pendingRecords.poll(settings.getFsyncIntervalMillis(), TimeUnit.MILLISECONDS);
+                if (firstRecord != null) {
+                    batch.add(firstRecord);
+                    pendingRecords.drainTo(batch, MAX_RECORDS_PER_BATCH_NUMBER - 1);
+                    unsyncedRecordsNumber += appendBatch(batch);
+                    batch.clear();
+                }
+
+                if (unsyncedRecordsNumber > 0 && (unsyncedRecordsNumber >= settings.getFsyncBatchRecordsNumber()
+                        || System.nanoTime() - lastFsyncNanos >= fsyncIntervalNanos)) {
+                    historyLog.force();
+                    fsyncsNumber.increment();
+                    unsyncedRecordsNumber = 0;
+                    lastFsyncNanos = System.nanoTime();
+                }
+            } catch (InterruptedException exception) {
+                isRunning = false;
+            }
+        }
+
+        historyLog.close();
+    }
+
+    private int appendBatch(List<EncodedMessage> batch) {
+        int appendedNumber = 0;
+        for (EncodedMessage encodedMessage : batch) {
+            try {
+                Message message = encodedMessage.getMessage();
+                historyLog.append(message.getSequenceId(), message.getTimestampEpochNanos(),
+                        encodedMessage.getBytes(MessageCodecType.BINARY.getCodec()));
+                appendedNumber++;
+            } catch (IOException | RuntimeException exception) {
+                droppedRecordsNumber.increment();
+                failuresHandler.accept(exception);
+            }
+        }
+        appendedRecordsNumber.add(appendedNumber);
+        return appendedNumber;
+    }
+
+    public long getAppendedRecordsNumber() {
+        return appendedRecordsNumber.sum();
+    }
+
+    public long getDroppedRecordsNumber() {
+        return droppedRecordsNumber.sum();
+    }
+
+    public long getFsyncsNumber() {
+        return fsyncsNumber.sum();
+    }
+
+    public int getPendingRecordsNumber() {
+        return pendingRecords.size();
+    }
+
+    @Override
+    public String toString() {
+        return "History records appended: " + getAppendedRecordsNumber() + "\n" +
+                "History records dropped: " + getDroppedRecordsNumber() + "\n" +
+                "History records pending: " + getPendingRecordsNumber() + "\n" +
+                "History fsyncs: " + getFsyncsNumber() + "\n" +
+                "History segments: " + historyLog.getSegmentsNumber() + "\n";
+    }
+}
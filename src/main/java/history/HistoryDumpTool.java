@@ -0,0 +1,42 @@
+package history;
+
+import connection.Message;
+import utilities.FormatMessagesBuilder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+public class HistoryDumpTool {
+    private static final int RECORDS_PER_READ_NUMBER = 1024;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("usage: HistoryDumpTool <history directory> [fromSequenceId]");
+            System.exit(1);
+            return;
+        }
+
+        Path directory = Path.of(args[0]);
+        long fromSequenceId = args.length > 1 ? Long.parseLong(args[1]) : 0;
+
+        try (HistoryLog historyLog = HistoryLog.openForReading(directory)) {
+            long nextSequenceId = Math.max(fromSequenceId, historyLog.getFirstSequenceId());
+            while (true) {
+                List<HistoryRecord> records = historyLog.readRecords(nextSequenceId, RECORDS_PER_READ_NUMBER);
+                if (records.isEmpty()) {
+                    break;
+                }
+
+                for (HistoryRecord record : records) {
+                    Message message = record.toMessage();
+                    System.out.println(record.sequenceId() + " | "
+                            + FormatMessagesBuilder.buildDateFromEpochNanos(record.timestampEpochNanos()) + " | "
+                            + message.getMessageType() + " | "
+                            + (message.getMessageText() == null ? "" : message.getMessageText().replace("\n", " ").trim()));
+                }
+                nextSequenceId = records.get(records.size() - 1).sequenceId() + 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package history;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+public class HistoryLog implements Closeable {
+    private static final long FIRST_SEQUENCE_ID = 1;
+
+    private final HistorySettings settings;
+    private final boolean isReadOnly;
+
+    private volatile HistorySegment[] segments;
+    private long lastTimestampEpochNanos = Long.MIN_VALUE;
+
+    private HistoryLog(HistorySettings settings, boolean isReadOnly, HistorySegment[] segments) {
+        this.settings = settings;
+        this.isReadOnly = isReadOnly;
+        this.segments = segments;
+
+        if (segments.length > 0) {
+            lastTimestampEpochNanos = segments[segments.length - 1].getLastTimestampEpochNanos();
+        }
+    }
+
+    public static HistoryLog open(HistorySettings settings) throws IOException {
+        Files.createDirectories(settings.getDirectory());
+        HistoryLog historyLog = new HistoryLog(settings, false, openSegments(settings.getDirectory(), false, settings));
+        historyLog.applyRetention();
+        return historyLog;
+    }
+
+    public static HistoryLog openForReading(Path directory) throws IOException {
+        HistorySettings settings = HistorySettings.builder().directory(directory).build();
+        return new HistoryLog(settings, true, openSegments(directory, true, settings));
+    }
+
+    private static HistorySegment[] openSegments(Path directory, boolean isReadOnly, HistorySettings settings) throws IOException {
+        List<Path> segmentPaths;
+        try (Stream<Path> directoryFiles = Files.list(directory)) {
+            segmentPaths = directoryFiles
+                    .filter(HistorySegment::isSegmentFile)
+                    .sorted(Comparator.comparingLong(HistorySegment::parseBaseSequenceId))
+                    .toList();
+        }
+
+        List<HistorySegment> openedSegments = new ArrayList<>(segmentPaths.size());
+        for (Path segmentPath : segmentPaths) {
+            openedSegments.add(HistorySegment.open(segmentPath, isReadOnly, settings.getIndexIntervalBytes()));
+        }
+        return openedSegments.toArray(new HistorySegment[0]);
+    }
+
+    public void append(long sequenceId, long timestampEpochNanos, byte[] payload) throws IOException {
+        if (isReadOnly) {
+            throw new IOException("The history log is opened for reading only");
+        }
+        if (sequenceId <= getLastSequenceId()) {
+            throw new IOException("The history record " + sequenceId + " is not after the last record " + getLastSequenceId());
+        }
+        if (!HistorySegment.canEverFit(payload.length, settings)) {
+            throw new IOException("The history record of " + payload.length + " bytes doesn't fit into a segment");
+        }
+
+        HistorySegment activeSegment = segments.length == 0 ? null : segments[segments.length - 1];
+        if (activeSegment == null || !activeSegment.hasRoomFor(payload.length)) {
+            activeSegment = rollOverSegment(activeSegment, sequenceId);
+        }
+
+        lastTimestampEpochNanos = Math.max(lastTimestampEpochNanos, timestampEpochNanos);
+        activeSegment.append(sequenceId, lastTimestampEpochNanos, payload);
+    }
+
+    public List<HistoryRecord> readRecords(long fromSequenceId, int maxRecordsNumber) {
+        HistorySegment[] currentSegments = segments;
+        List<HistoryRecord> records = new ArrayList<>(Math.min(maxRecordsNumber, 1024));
+
+        for (int i = Math.max(0, findSegmentIndexBySequenceId(currentSegments, fromSequenceId));
+             i < currentSegments.length && records.size() < maxRecordsNumber; i++) {
+            currentSegments[i].readRecords(fromSequenceId, maxRecordsNumber, records);
+        }
+        return records;
+    }
+
+    public List<HistoryRecord> readRecordsBefore(long beforeSequenceId, int maxRecordsNumber) {
+        long firstSequenceId = getFirstSequenceId();
+        long windowSize = maxRecordsNumber;
+        long fromSequenceId = beforeSequenceId;
+        List<HistoryRecord> records = new ArrayList<>();
+
+        while (records.size() < maxRecordsNumber && fromSequenceId > firstSequenceId) {
+            fromSequenceId = Math.max(firstSequenceId, beforeSequenceId - windowSize);
+            records = readRecords(fromSequenceId, (int) Math.min(beforeSequenceId - fromSequenceId, Integer.MAX_VALUE));
+            while (!records.isEmpty() && records.get(records.size() - 1).sequenceId() >= beforeSequenceId) {
+                records.remove(records.size() - 1);
+            }
+            windowSize *= 2;
+        }
+
+        return records.size() > maxRecordsNumber
+                ? new ArrayList<>(records.subList(records.size() - maxRecordsNumber, records.size()))
+                : records;
+    }
+
+    public long findSequenceIdByTime(long timestampEpochNanos) {
+        HistorySegment[] currentSegments = segments;
+        int low = 0;
+        int high = currentSegments.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (currentSegments[middle].getLastTimestampEpochNanos() < timestampEpochNanos) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        if (low < currentSegments.length) {
+            long sequenceId = currentSegments[low].findSequenceIdByTime(timestampEpochNanos);
+            if (sequenceId >= 0) {
+                return sequenceId;
+            }
+        }
+        return getLastSequenceId() + 1;
+    }
+
+    public long getFirstSequenceId() {
+        HistorySegment[] currentSegments = segments;
+        return currentSegments.length == 0 ? FIRST_SEQUENCE_ID : currentSegments[0].getBaseSequenceId();
+    }
+
+    public long getLastSequenceId() {
+        HistorySegment[] currentSegments = segments;
+        return currentSegments.length == 0
+                ? FIRST_SEQUENCE_ID - 1
+                : currentSegments[currentSegments.length - 1].getLastSequenceId();
+    }
+
+    public int getSegmentsNumber() {
+        return segments.length;
+    }
+
+    public void force() {
+        HistorySegment[] currentSegments = segments;
+        if (!isReadOnly && currentSegments.length > 0) {
+            currentSegments[currentSegments.length - 1].force();
+        }
+    }
+
+    @Override
+    public void close() {
+        force();
+    }
+
+    private HistorySegment rollOverSegment(HistorySegment activeSegment, long baseSequenceId) throws IOException {
+        if (activeSegment != null) {
+            activeSegment.force();
+        }
+
+        HistorySegment[] currentSegments = segments;
+        if (activeSegment != null && activeSegment.isEmpty()) {
+            currentSegments = Arrays.copyOf(currentSegments, currentSegments.length - 1);
+            segments = currentSegments;
+            activeSegment.delete();
+        }
+
+        HistorySegment newSegment = HistorySegment.create(settings.getDirectory(), baseSequenceId, settings);
+        HistorySegment[] updatedSegments = Arrays.copyOf(currentSegments, currentSegments.length + 1);
+        updatedSegments[currentSegments.length] = newSegment;
+        segments = updatedSegments;
+
+        applyRetention();
+        return newSegment;
+    }
+
+    private void applyRetention() throws IOException {
+        long retentionThresholdEpochNanos = lastTimestampEpochNanos - TimeUnit.MILLISECONDS.toNanos(settings.getRetentionMillis());
+        HistorySegment[] currentSegments = segments;
+        int removedSegmentsNumber = 0;
+
+        while (currentSegments.length - removedSegmentsNumber > 1) {
+            HistorySegment oldestSegment = currentSegments[removedSegmentsNumber];
+            boolean isOverSegmentsLimit = currentSegments.length - removedSegmentsNumber > settings.getRetainedSegmentsNumber();
+            boolean isExpired = oldestSegment.getLastTimestampEpochNanos() < retentionThresholdEpochNanos;
+            if (!isOverSegmentsLimit && !isExpired) {
+                break;
+            }
+            removedSegmentsNumber++;
+        }
+
+        if (removedSegmentsNumber > 0) {
+            segments = Arrays.copyOfRange(currentSegments, removedSegmentsNumber, currentSegments.length);
+            for (int i = 0; i < removedSegmentsNumber; i++) {
+                currentSegments[i].delete();
+            }
+        }
+    }
+
+    private static int findSegmentIndexBySequenceId(HistorySegment[] segments, long sequenceId) {
+        int low = 0;
+        int high = segments.length - 1;
+        int floorIndex = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (segments[middle].getBaseSequenceId() <= sequenceId) {
+                floorIndex = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return floorIndex;
+    }
+}
@@ -0,0 +1,13 @@
+package history;
+
+import connection.Message;
+import connection.MessageCodecType;
+
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+
+public record HistoryRecord(long sequenceId, long timestampEpochNanos, byte[] payload) {
+    public Message toMessage() throws ProtocolException {
+        return MessageCodecType.BINARY.getCodec().decode(ByteBuffer.wrap(payload), 0, payload.length);
+    }
+}
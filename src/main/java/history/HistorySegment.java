@@ -0,0 +1,262 @@
+package history;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+class HistorySegment {
+    static final String SEGMENT_FILE_SUFFIX = ".log";
+
+    private static final int LENGTH_OFFSET = 0;
+    private static final int CHECKSUM_OFFSET = LENGTH_OFFSET + Integer.BYTES;
+    private static final int SEQUENCE_ID_OFFSET = CHECKSUM_OFFSET + Integer.BYTES;
+    private static final int TIMESTAMP_OFFSET = SEQUENCE_ID_OFFSET + Long.BYTES;
+    private static final int RECORD_HEADER_SIZE = TIMESTAMP_OFFSET + Long.BYTES;
+    private static final int INITIAL_INDEX_CAPACITY = 64;
+
+    private final Path path;
+    private final long baseSequenceId;
+    private final MappedByteBuffer buffer;
+    private final int indexIntervalBytes;
+
+    private volatile int writePosition;
+    private volatile long lastSequenceId;
+    private volatile long lastTimestampEpochNanos = Long.MIN_VALUE;
+
+    private volatile SparseIndex sparseIndex = new SparseIndex(INITIAL_INDEX_CAPACITY);
+    private volatile int indexEntriesNumber;
+    private int lastIndexedPosition = -1;
+
+    private HistorySegment(Path path, long baseSequenceId, MappedByteBuffer buffer, int indexIntervalBytes) {
+        this.path = path;
+        this.baseSequenceId = baseSequenceId;
+        this.buffer = buffer;
+        this.indexIntervalBytes = indexIntervalBytes;
+        this.lastSequenceId = baseSequenceId - 1;
+    }
+
+    static HistorySegment create(Path directory, long baseSequenceId, HistorySettings settings) throws IOException {
+        Path path = directory.resolve(buildSegmentFileName(baseSequenceId));
+        try (FileChannel fileChannel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, settings.getSegmentSizeBytes());
+            return new HistorySegment(path, baseSequenceId, buffer, settings.getIndexIntervalBytes());
+        }
+    }
+
+    static HistorySegment open(Path path, boolean isReadOnly, int indexIntervalBytes) throws IOException {
+        long baseSequenceId = parseBaseSequenceId(path);
+        try (FileChannel fileChannel = isReadOnly
+                ? FileChannel.open(path, StandardOpenOption.READ)
+                : FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = fileChannel.map(
+                    isReadOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE, 0, fileChannel.size());
+            HistorySegment segment = new HistorySegment(path, baseSequenceId, buffer, indexIntervalBytes);
+            segment.recover(isReadOnly);
+            return segment;
+        }
+    }
+
+    static boolean isSegmentFile(Path path) {
+        return path.getFileName().toString().endsWith(SEGMENT_FILE_SUFFIX);
+    }
+
+    static long parseBaseSequenceId(Path path) {
+        String fileName = path.getFileName().toString();
+        return Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_FILE_SUFFIX.length()));
+    }
+
+    private static String buildSegmentFileName(long baseSequenceId) {
+        return String.format("%020d%s", baseSequenceId, SEGMENT_FILE_SUFFIX);
+    }
+
+    boolean hasRoomFor(int payloadLength) {
+        return (long) writePosition + RECORD_HEADER_SIZE + payloadLength + Integer.BYTES <= buffer.capacity();
+    }
+
+    static boolean canEverFit(int payloadLength, HistorySettings settings) {
+        return (long) RECORD_HEADER_SIZE + payloadLength + Integer.BYTES <= settings.getSegmentSizeBytes();
+    }
+
+    void append(long sequenceId, long timestampEpochNanos, byte[] payload) {
+        int position = writePosition;
+        buffer.putLong(position + SEQUENCE_ID_OFFSET, sequenceId);
+        buffer.putLong(position + TIMESTAMP_OFFSET, timestampEpochNanos);
+        buffer.put(position + RECORD_HEADER_SIZE, payload);
+        buffer.putInt(position + CHECKSUM_OFFSET, computeChecksum(position, payload.length));
+
+        int nextPosition = position + RECORD_HEADER_SIZE + payload.length;
+        buffer.putInt(nextPosition + LENGTH_OFFSET, 0);
+        buffer.putInt(position + LENGTH_OFFSET, payload.length);
+
+        addIndexEntryIfNeeded(sequenceId, timestampEpochNanos, position);
+        lastTimestampEpochNanos = timestampEpochNanos;
+        lastSequenceId = sequenceId;
+        writePosition = nextPosition;
+    }
+
+    void readRecords(long fromSequenceId, int maxRecordsNumber, List<HistoryRecord> records) {
+        int endPosition = writePosition;
+        int position = findIndexedPositionBySequenceId(fromSequenceId);
+
+        while (position < endPosition && records.size() < maxRecordsNumber) {
+            int payloadLength = buffer.getInt(position + LENGTH_OFFSET);
+            long sequenceId = buffer.getLong(position + SEQUENCE_ID_OFFSET);
+            if (sequenceId >= fromSequenceId) {
+                byte[] payload = new byte[payloadLength];
+                buffer.get(position + RECORD_HEADER_SIZE, payload);
+                records.add(new HistoryRecord(sequenceId, buffer.getLong(position + TIMESTAMP_OFFSET), payload));
+            }
+            position += RECORD_HEADER_SIZE + payloadLength;
+        }
+    }
+
+    long findSequenceIdByTime(long timestampEpochNanos) {
+        if (lastTimestampEpochNanos < timestampEpochNanos) {
+            return -1;
+        }
+
+        int endPosition = writePosition;
+        int position = findIndexedPositionByTime(timestampEpochNanos);
+        while (position < endPosition) {
+            if (buffer.getLong(position + TIMESTAMP_OFFSET) >= timestampEpochNanos) {
+                return buffer.getLong(position + SEQUENCE_ID_OFFSET);
+            }
+            position += RECORD_HEADER_SIZE + buffer.getInt(position + LENGTH_OFFSET);
+        }
+        return -1;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void delete() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    long getBaseSequenceId() {
+        return baseSequenceId;
+    }
+
+    long getLastSequenceId() {
+        return lastSequenceId;
+    }
+
+    long getLastTimestampEpochNanos() {
+        return lastTimestampEpochNanos;
+    }
+
+    boolean isEmpty() {
+        return writePosition == 0;
+    }
+
+    private void recover(boolean isReadOnly) {
+        int position = 0;
+
+        while ((long) position + RECORD_HEADER_SIZE <= buffer.capacity()) {
+            int payloadLength = buffer.getInt(position + LENGTH_OFFSET);
+            if (payloadLength <= 0 || (long) position + RECORD_HEADER_SIZE + payloadLength > buffer.capacity()
+                    || buffer.getLong(position + SEQUENCE_ID_OFFSET) <= lastSequenceId
+                    || buffer.getInt(position + CHECKSUM_OFFSET) != computeChecksum(position, payloadLength)) {
+                break;
+            }
+
+            long sequenceId = buffer.getLong(position + SEQUENCE_ID_OFFSET);
+            long timestampEpochNanos = buffer.getLong(position + TIMESTAMP_OFFSET);
+            addIndexEntryIfNeeded(sequenceId, timestampEpochNanos, position);
+            lastTimestampEpochNanos = timestampEpochNanos;
+            lastSequenceId = sequenceId;
+            position += RECORD_HEADER_SIZE + payloadLength;
+        }
+
+        if (!isReadOnly && (long) position + Integer.BYTES <= buffer.capacity()) {
+            buffer.putInt(position + LENGTH_OFFSET, 0);
+        }
+        writePosition = position;
+    }
+
+    private int computeChecksum(int position, int payloadLength) {
+        CRC32C checksum = new CRC32C();
+        checksum.update(buffer.slice(position + SEQUENCE_ID_OFFSET, RECORD_HEADER_SIZE - SEQUENCE_ID_OFFSET + payloadLength));
+        return (int) checksum.getValue();
+    }
+
+    private void addIndexEntryIfNeeded(long sequenceId, long timestampEpochNanos, int position) {
+        if (lastIndexedPosition >= 0 && position - lastIndexedPosition < indexIntervalBytes) {
+            return;
+        }
+
+        int entriesNumber = indexEntriesNumber;
+        SparseIndex currentIndex = sparseIndex;
+        if (entriesNumber == currentIndex.positions.length) {
+            currentIndex = currentIndex.grow();
+            sparseIndex = currentIndex;
+        }
+        currentIndex.sequenceIds[entriesNumber] = sequenceId;
+        currentIndex.timestamps[entriesNumber] = timestampEpochNanos;
+        currentIndex.positions[entriesNumber] = position;
+        lastIndexedPosition = position;
+        indexEntriesNumber = entriesNumber + 1;
+    }
+
+    private int findIndexedPositionBySequenceId(long sequenceId) {
+        int entriesNumber = indexEntriesNumber;
+        SparseIndex currentIndex = sparseIndex;
+        int entryIndex = findFloorEntryIndex(currentIndex.sequenceIds, entriesNumber, sequenceId);
+        return entryIndex < 0 ? 0 : currentIndex.positions[entryIndex];
+    }
+
+    private int findIndexedPositionByTime(long timestampEpochNanos) {
+        int entriesNumber = indexEntriesNumber;
+        SparseIndex currentIndex = sparseIndex;
+        int entryIndex = findFloorEntryIndex(currentIndex.timestamps, entriesNumber, timestampEpochNanos - 1);
+        return entryIndex < 0 ? 0 : currentIndex.positions[entryIndex];
+    }
+
+    private static int findFloorEntryIndex(long[] keys, int entriesNumber, long key) {
+        int low = 0;
+        int high = entriesNumber - 1;
+        int floorIndex = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] <= key) {
+                floorIndex = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return floorIndex;
+    }
+
+    private static class SparseIndex {
+        private final long[] sequenceIds;
+        private final long[] timestamps;
+        private final int[] positions;
+
+        private SparseIndex(int capacity) {
+            this(new long[capacity], new long[capacity], new int[capacity]);
+        }
+
+        private SparseIndex(long[] sequenceIds, long[] timestamps, int[] positions) {
+            this.sequenceIds = sequenceIds;
+            this.timestamps = timestamps;
+            this.positions = positions;
+        }
+
+        private SparseIndex grow() {
+            int capacity = positions.length * 2;
+            return new SparseIndex(
+                    Arrays.copyOf(sequenceIds, capacity),
+                    Arrays.copyOf(timestamps, capacity),
+                    Arrays.copyOf(positions, capacity));
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package history;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@Builder
+@Getter
+public class HistorySettings {
+    private final Path directory;
+
+    @Builder.Default
+    private final int segmentSizeBytes = 32 * 1024 * 1024;
+
+    @Builder.Default
+    private final int indexIntervalBytes = 4096;
+
+    @Builder.Default
+    private final long fsyncIntervalMillis = 1000;
+
+    @Builder.Default
+    private final int fsyncBatchRecordsNumber = 4096;
+
+    @Builder.Default
+    private final int retainedSegmentsNumber = 16;
+
+    @Builder.Default
+    private final long retentionMillis = TimeUnit.DAYS.toMillis(7);
+
+    @Builder.Default
+    private final int writerQueueCapacity = 65536;
+}
@@ -0,0 +1,38 @@
+package metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class Counter {
+    private final LongAdder count = new LongAdder();
+
+    private long lastSampledCount;
+    private long lastSampledNanos = System.nanoTime();
+    private volatile double ratePerSecond;
+
+    public void increment() {
+        count.increment();
+    }
+
+    public void add(long value) {
+        count.add(value);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getRatePerSecond() {
+        return ratePerSecond;
+    }
+
+    synchronized void updateRate(long nowNanos) {
+        long currentCount = count.sum();
+        long elapsedNanos = nowNanos - lastSampledNanos;
+        if (elapsedNanos > 0) {
+            ratePerSecond = (double) (currentCount - lastSampledCount) * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        }
+        lastSampledCount = currentCount;
+        lastSampledNanos = nowNanos;
+    }
+}
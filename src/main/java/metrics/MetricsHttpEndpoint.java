@@ -0,0 +1,60 @@
+package metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class MetricsHttpEndpoint {
+    private static final String METRICS_PATH = "/metrics";
+    private static final String TEXT_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final int HTTP_OK_STATUS = 200;
+    private static final int HTTP_METHOD_NOT_ALLOWED_STATUS = 405;
+
+    private final MetricsRegistry metricsRegistry;
+    private final HttpServer httpServer;
+    private final ExecutorService requestsExecutor;
+
+    public MetricsHttpEndpoint(MetricsRegistry metricsRegistry, int port) throws IOException {
+        this.metricsRegistry = metricsRegistry;
+        this.httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.requestsExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "metrics-http"));
+        httpServer.createContext(METRICS_PATH, this::handleMetricsRequest);
+        httpServer.setExecutor(requestsExecutor);
+    }
+
+    public void start() {
+        httpServer.start();
+    }
+
+    public void stop() {
+        httpServer.stop(0);
+        requestsExecutor.shutdownNow();
+    }
+
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    private void handleMetricsRequest(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(HTTP_METHOD_NOT_ALLOWED_STATUS, -1);
+                return;
+            }
+
+            byte[] report = metricsRegistry.getTextReport().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", TEXT_CONTENT_TYPE);
+            exchange.sendResponseHeaders(HTTP_OK_STATUS, report.length);
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                responseBody.write(report);
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package metrics;
+
+import utilities.LatencyHistogram;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+public class MetricsRegistry implements MetricsRegistryMXBean {
+    private static final double[] REPORTED_QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final String COUNTER_SUFFIX = "_total";
+    private static final String RATE_SUFFIX = "_per_second";
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final Map<String, Counter> counters = new ConcurrentSkipListMap<>();
+    private final Map<String, DoubleSupplier> gauges = new ConcurrentSkipListMap<>();
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentSkipListMap<>();
+    private final Map<String, String> descriptions = new ConcurrentHashMap<>();
+
+    private volatile ObjectName registeredObjectName;
+
+    public Counter counter(String name, String description) {
+        descriptions.putIfAbsent(name, description);
+        return counters.computeIfAbsent(name, key -> new Counter());
+    }
+
+    public void gauge(String name, String description, DoubleSupplier valueSupplier) {
+        descriptions.put(name, description);
+        gauges.put(name, valueSupplier);
+    }
+
+    public LatencyHistogram histogram(String name, String description) {
+        descriptions.putIfAbsent(name, description);
+        return histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    public void updateRates() {
+        long nowNanos = System.nanoTime();
+        for (Counter counter : counters.values()) {
+            counter.updateRate(nowNanos);
+        }
+    }
+
+    public synchronized void registerMBean(String objectName) throws JMException {
+        if (registeredObjectName != null) {
+            return;
+        }
+        ObjectName name = new ObjectName(objectName);
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        if (mBeanServer.isRegistered(name)) {
+            mBeanServer.unregisterMBean(name);
+        }
+        mBeanServer.registerMBean(this, name);
+        registeredObjectName = name;
+    }
+
+    public synchronized void unregisterMBean() throws JMException {
+        if (registeredObjectName != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredObjectName);
+            registeredObjectName = null;
+        }
+    }
+
+    @Override
+    public Map<String, Double> getMetrics() {
+        Map<String, Double> metrics = new TreeMap<>();
+        counters.forEach((name, counter) -> {
+            metrics.put(name, (double) counter.getCount());
+            metrics.put(buildRateName(name), counter.getRatePerSecond());
+        });
+        gauges.forEach((name, valueSupplier) -> metrics.put(name, readGauge(valueSupplier)));
+        histograms.forEach((name, histogram) -> {
+            metrics.put(name + "_count", (double) histogram.getTotalCount());
+            for (double quantile : REPORTED_QUANTILES) {
+                metrics.put(name + "_p" + formatQuantile(quantile * 100), toSeconds(histogram.getValueAtPercentile(quantile * 100)));
+            }
+            metrics.put(name + "_max", toSeconds(histogram.getMaxValue()));
+        });
+        return metrics;
+    }
+
+    @Override
+    public String getTextReport() {
+        StringBuilder report = new StringBuilder();
+        counters.forEach((name, counter) -> {
+            appendMetricHeader(report, name, descriptions.get(name), "counter");
+            appendMetricValue(report, name, counter.getCount());
+            String rateName = buildRateName(name);
+            appendMetricHeader(report, rateName, descriptions.get(name) + " per second", "gauge");
+            appendMetricValue(report, rateName, counter.getRatePerSecond());
+        });
+        gauges.forEach((name, valueSupplier) -> {
+            appendMetricHeader(report, name, descriptions.get(name), "gauge");
+            appendMetricValue(report, name, readGauge(valueSupplier));
+        });
+        histograms.forEach((name, histogram) -> {
+            appendMetricHeader(report, name, descriptions.get(name), "summary");
+            for (double quantile : REPORTED_QUANTILES) {
+                appendMetricValue(report, name + "{quantile=\"" + quantile + "\"}",
+                        toSeconds(histogram.getValueAtPercentile(quantile * 100)));
+            }
+            appendMetricValue(report, name + "_sum", toSeconds(histogram.getTotalValue()));
+            appendMetricValue(report, name + "_count", histogram.getTotalCount());
+        });
+        return report.toString();
+    }
+
+    private static void appendMetricHeader(StringBuilder report, String name, String description, String type) {
+        report.append("# HELP ").append(name).append(' ').append(description).append('\n')
+                .append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void appendMetricValue(StringBuilder report, String name, long value) {
+        report.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void appendMetricValue(StringBuilder report, String name, double value) {
+        report.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static double readGauge(DoubleSupplier valueSupplier) {
+        try {
+            return valueSupplier.getAsDouble();
+        } catch (RuntimeException exception) {
+            return Double.NaN;
+        }
+    }
+
+    private static String buildRateName(String counterName) {
+        return counterName.endsWith(COUNTER_SUFFIX)
+                ? counterName.substring(0, counterName.length() - COUNTER_SUFFIX.length()) + RATE_SUFFIX
+                : counterName + RATE_SUFFIX;
+    }
+
+    private static String formatQuantile(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile).replace('.', '_');
+    }
+
+    private static double toSeconds(long nanos) {
+        return nanos / NANOS_PER_SECOND;
+    }
+}
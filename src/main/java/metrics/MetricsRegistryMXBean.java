@@ -0,0 +1,9 @@
+package metrics;
+
+import java.util.Map;
+
+public interface MetricsRegistryMXBean {
+    Map<String, Double> getMetrics();
+
+    String getTextReport();
+}
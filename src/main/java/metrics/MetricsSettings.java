@@ -0,0 +1,17 @@
+package metrics;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Builder
+@Getter
+public class MetricsSettings {
+    @Builder.Default
+    private final boolean jmxEnabled = true;
+
+    @Builder.Default
+    private final int httpPort = 0;
+
+    @Builder.Default
+    private final long rateIntervalMillis = 1000;
+}
@@ -0,0 +1,68 @@
+package server;
+
+import connection.UserConnection;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public class ChatRoom {
+    private final String name;
+
+    private final ConcurrentMap<String, UserConnection> membersConnections = new ConcurrentHashMap<>();
+    private volatile UserConnection[] membersConnectionsSnapshot = new UserConnection[0];
+
+    ChatRoom(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public UserConnection[] getMembersConnectionsSnapshot() {
+        return membersConnectionsSnapshot;
+    }
+
+    public Set<String> getMembersUsernames() {
+        return new HashSet<>(membersConnections.keySet());
+    }
+
+    public int getMembersNumber() {
+        return membersConnections.size();
+    }
+
+    public boolean isMember(String username) {
+        return membersConnections.containsKey(username);
+    }
+
+    boolean isEmpty() {
+        return membersConnections.isEmpty();
+    }
+
+    boolean addMember(String username, UserConnection userConnection) {
+        if (membersConnections.putIfAbsent(username, userConnection) != null) {
+            return false;
+        }
+        rebuildMembersConnectionsSnapshot();
+        return true;
+    }
+
+    boolean removeMember(String username) {
+        if (membersConnections.remove(username) == null) {
+            return false;
+        }
+        rebuildMembersConnectionsSnapshot();
+        return true;
+    }
+
+    void removeAllMembers() {
+        membersConnections.clear();
+        rebuildMembersConnectionsSnapshot();
+    }
+
+    private void rebuildMembersConnectionsSnapshot() {
+        membersConnectionsSnapshot = membersConnections.values().toArray(new UserConnection[0]);
+    }
+}
@@ -0,0 +1,106 @@
+package server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ConnectionPipeline {
+    private final ConnectionPipelineSettings settings;
+
+    private final ThreadPoolExecutor handshakeExecutor;
+
+    private final ThreadPoolExecutor registrationExecutor = new ThreadPoolExecutor(
+            1, 1,
+            0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            Thread.ofPlatform().name("registration-stage").daemon().factory());
+
+    private final ScheduledExecutorService handshakeTimeoutsScheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("handshake-timeouts").daemon().factory());
+
+    private final LongAdder acceptedConnectionsNumber = new LongAdder();
+    private final LongAdder rejectedConnectionsNumber = new LongAdder();
+    private final LongAdder timedOutHandshakesNumber = new LongAdder();
+
+    public ConnectionPipeline(ConnectionPipelineSettings settings) {
+        this.settings = settings;
+        this.handshakeExecutor = new ThreadPoolExecutor(
+                settings.getHandshakeThreadsNumber(), settings.getHandshakeThreadsNumber(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(settings.getHandshakeQueueCapacity()),
+                Thread.ofPlatform().name("handshake-stage-", 0).daemon().factory());
+    }
+
+    public boolean submitHandshake(Runnable handshakeTask) {
+        acceptedConnectionsNumber.increment();
+        try {
+            handshakeExecutor.execute(handshakeTask);
+            return true;
+        } catch (RejectedExecutionException exception) {
+            rejectedConnectionsNumber.increment();
+            return false;
+        }
+    }
+
+    public ScheduledFuture<?> scheduleHandshakeTimeout(Closeable userConnection) {
+        return handshakeTimeoutsScheduler.schedule(() -> {
+            timedOutHandshakesNumber.increment();
+            try {
+                userConnection.close();
+            } catch (IOException ignored) {
+            }
+        }, settings.getHandshakeTimeoutMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public boolean registerNewUser(Callable<Boolean> registrationTask) throws Exception {
+        try {
+            return registrationExecutor.submit(registrationTask).get();
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw exception;
+        }
+    }
+
+    public int getHandshakeQueueDepth() {
+        return handshakeExecutor.getQueue().size();
+    }
+
+    public int getActiveHandshakesNumber() {
+        return handshakeExecutor.getActiveCount();
+    }
+
+    public int getRegistrationQueueDepth() {
+        return registrationExecutor.getQueue().size();
+    }
+
+    public long getAcceptedConnectionsNumber() {
+        return acceptedConnectionsNumber.sum();
+    }
+
+    public long getRejectedConnectionsNumber() {
+        return rejectedConnectionsNumber.sum();
+    }
+
+    public long getTimedOutHandshakesNumber() {
+        return timedOutHandshakesNumber.sum();
+    }
+
+    public void shutdown() {
+        handshakeExecutor.shutdownNow();
+        registrationExecutor.shutdownNow();
+        handshakeTimeoutsScheduler.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return "Accepted connections: " + getAcceptedConnectionsNumber() + "\n" +
+                "Rejected connections: " + getRejectedConnectionsNumber() + "\n" +
+                "Handshake queue depth: " + getHandshakeQueueDepth() + "\n" +
+                "Active handshakes: " + getActiveHandshakesNumber() + "\n" +
+                "Timed out handshakes: " + getTimedOutHandshakesNumber() + "\n" +
+                "Registration queue depth: " + getRegistrationQueueDepth() + "\n";
+    }
+}
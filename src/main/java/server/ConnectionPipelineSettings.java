@@ -0,0 +1,17 @@
+package server;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Builder
+@Getter
+public class ConnectionPipelineSettings {
+    @Builder.Default
+    private final int handshakeThreadsNumber = 16;
+
+    @Builder.Default
+    private final int handshakeQueueCapacity = 1024;
+
+    @Builder.Default
+    private final long handshakeTimeoutMillis = 60000;
+}
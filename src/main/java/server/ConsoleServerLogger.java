@@ -0,0 +1,38 @@
+package server;
+
+import connection.Message;
+import connection.MessageType;
+import connection.ServerObserver;
+import org.apache.log4j.Logger;
+
+public class ConsoleServerLogger implements ServerLogger, ServerObserver {
+    private static final Logger logger = Logger.getLogger(ConsoleServerLogger.class);
+
+    @Override
+    public void logServiceMessage(String serviceMessage) {
+        logger.info(serviceMessage);
+    }
+
+    @Override
+    public void update(Message message) {
+        String username = message.getMessageText();
+
+        if (MessageType.isTypeNotifyToAdd(message.getMessageType())) {
+            logger.info("The user " + username + " joined the room " + message.getRoomName());
+        }
+
+        if (MessageType.isTypeNotifyToRemove(message.getMessageType())) {
+            logger.info(message.getRoomName() == null
+                    ? "The user " + username + " left the chat"
+                    : "The user " + username + " left the room " + message.getRoomName());
+        }
+
+        if (MessageType.isTypeNotifyLagging(message.getMessageType())) {
+            logger.warn("The user " + username + " is lagging behind the outbound messages");
+        }
+
+        if (MessageType.isTypeNotifyRecovered(message.getMessageType())) {
+            logger.info("The user " + username + " has caught up with the outbound messages");
+        }
+    }
+}
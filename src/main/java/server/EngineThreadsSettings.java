@@ -0,0 +1,14 @@
+package server;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Builder
+@Getter
+public class EngineThreadsSettings {
+    @Builder.Default
+    private final int pollingThreadsNumber = 10;
+
+    @Builder.Default
+    private final int selectorEventLoopsNumber = Math.min(4, Runtime.getRuntime().availableProcessors());
+}
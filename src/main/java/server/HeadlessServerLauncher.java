@@ -0,0 +1,235 @@
+package server;
+
+import connection.OutboundQueueSettings;
+import connection.SlowConsumerPolicy;
+import history.HistorySettings;
+import metrics.MetricsSettings;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.log4j.Logger;
+
+import java.io.PrintWriter;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class HeadlessServerLauncher {
+    private static final Logger launcherLogger = Logger.getLogger(HeadlessServerLauncher.class);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS_TIME = 30000;
+
+    public static void main(String[] args) {
+        Options options = buildCommandLineOptions();
+        ServerController serverController = new ServerController();
+        int port;
+        try {
+            CommandLine commandLine = new DefaultParser().parse(options, args);
+            port = Integer.parseInt(commandLine.getOptionValue("port"));
+            configureServerController(serverController, commandLine);
+        } catch (ParseException | IllegalArgumentException exception) {
+            System.err.println("Invalid command line arguments: " + exception.getMessage());
+            printUsage(options);
+            System.exit(1);
+            return;
+        }
+
+        ConsoleServerLogger serverLogger = new ConsoleServerLogger();
+        serverController.addObserver(serverLogger);
+        serverController.setServerLogger(serverLogger);
+        serverController.setServerModel(new ServerModel());
+
+        try {
+            synchronized (serverController) {
+                serverController.setHasServerStarted(true);
+                serverController.startServerOnPort(port);
+            }
+        } catch (Exception exception) {
+            launcherLogger.error("Couldn't start the server on port " + port, exception);
+            System.exit(1);
+            return;
+        }
+        AtomicBoolean isShutdownRequested = new AtomicBoolean();
+        Runtime.getRuntime().addShutdownHook(new Thread(
+                () -> stopServerAndAwait(serverController, isShutdownRequested), "server-shutdown"));
+
+        serverController.acceptNewUserConnections();
+        if (!isShutdownRequested.get()) {
+            launcherLogger.error("The server stopped accepting connections unexpectedly");
+            serverController.stopServer();
+            System.exit(1);
+        }
+    }
+
+    private static void stopServerAndAwait(ServerController serverController, AtomicBoolean isShutdownRequested) {
+        isShutdownRequested.set(true);
+        serverController.stopServer();
+        try {
+            if (!serverController.awaitServerStopped(SHUTDOWN_TIMEOUT_MILLIS_TIME)) {
+                launcherLogger.error("The server didn't stop in " + SHUTDOWN_TIMEOUT_MILLIS_TIME + " ms");
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void printUsage(Options options) {
+        PrintWriter usageWriter = new PrintWriter(System.err);
+        new HelpFormatter().printUsage(usageWriter, Integer.MAX_VALUE, "HeadlessServerLauncher", options);
+        usageWriter.flush();
+    }
+
+    private static Options buildCommandLineOptions() {
+        return new Options()
+                .addOption(Option.builder("p").longOpt("port").hasArg().required().desc("server port").build())
+                .addOption(Option.builder("e").longOpt("engine").hasArg()
+                        .desc("engine mode: POLLING, SELECTOR or VIRTUAL_THREADS").build())
+                .addOption(Option.builder().longOpt("polling-threads").hasArg()
+                        .desc("threads of the POLLING engine").build())
+                .addOption(Option.builder().longOpt("event-loops").hasArg()
+                        .desc("selector event loops of the SELECTOR engine").build())
+                .addOption(Option.builder().longOpt("json-only").desc("don't offer the binary codec").build())
+                .addOption(Option.builder().longOpt("handshake-threads").hasArg()
+                        .desc("threads negotiating the logins of new users").build())
+                .addOption(Option.builder().longOpt("handshake-queue-capacity").hasArg()
+                        .desc("connections waiting for a handshake thread, more are rejected").build())
+                .addOption(Option.builder().longOpt("handshake-timeout-millis").hasArg()
+                        .desc("time for a new user to log in").build())
+                .addOption(Option.builder().longOpt("queue-capacity").hasArg()
+                        .desc("outbound queue capacity of each user, frames").build())
+                .addOption(Option.builder().longOpt("slow-consumer-policy").hasArg()
+                        .desc("DROP_OLDEST, DISCONNECT or BLOCK_WITH_TIMEOUT").build())
+                .addOption(Option.builder().longOpt("history-dir").hasArg().desc("chat history directory, the history is off without it").build())
+                .addOption(Option.builder().longOpt("history-segment-size").hasArg()
+                        .desc("chat history segment size, bytes").build())
+                .addOption(Option.builder().longOpt("history-segments").hasArg()
+                        .desc("retained chat history segments").build())
+                .addOption(Option.builder().longOpt("history-retention-hours").hasArg()
+                        .desc("chat history retention, hours").build())
+                .addOption(Option.builder().longOpt("replay-messages").hasArg()
+                        .desc("recent messages replayed to a new user").build())
+                .addOption(Option.builder().longOpt("user-rate").hasArg()
+                        .desc("messages per second of each user, 0 disables the limit").build())
+                .addOption(Option.builder().longOpt("user-burst").hasArg().desc("message burst of each user").build())
+                .addOption(Option.builder().longOpt("server-rate").hasArg()
+                        .desc("messages per second of the whole server, 0 disables the limit").build())
+                .addOption(Option.builder().longOpt("server-burst").hasArg().desc("message burst of the whole server").build())
+                .addOption(Option.builder().longOpt("user-history-rate").hasArg()
+                        .desc("history requests per second of each user, 0 disables the limit").build())
+                .addOption(Option.builder().longOpt("user-history-burst").hasArg()
+                        .desc("history request burst of each user").build())
+                .addOption(Option.builder().longOpt("metrics-port").hasArg()
+                        .desc("local port of the plain-text metrics endpoint, 0 disables it").build())
+                .addOption(Option.builder().longOpt("no-jmx").desc("don't register the metrics MBean").build())
+                .addOption(Option.builder().longOpt("trace-sample-interval").hasArg()
+                        .desc("trace every n-th chat message, 0 disables tracing").build())
+                .addOption(Option.builder().longOpt("trace-window-millis").hasArg()
+                        .desc("time to wait for the echoes of a traced message").build());
+    }
+
+    private static void configureServerController(ServerController serverController, CommandLine commandLine) {
+        if (commandLine.hasOption("engine")) {
+            serverController.setEngineMode(ServerEngineMode.valueOf(commandLine.getOptionValue("engine")));
+        }
+        serverController.setBinaryCodecOffered(!commandLine.hasOption("json-only"));
+
+        EngineThreadsSettings defaultThreadsSettings = serverController.getEngineThreadsSettings();
+        serverController.setEngineThreadsSettings(EngineThreadsSettings.builder()
+                .pollingThreadsNumber(parseInt(commandLine, "polling-threads", defaultThreadsSettings.getPollingThreadsNumber()))
+                .selectorEventLoopsNumber(parseInt(commandLine, "event-loops", defaultThreadsSettings.getSelectorEventLoopsNumber()))
+                .build());
+
+        ConnectionPipelineSettings defaultPipelineSettings = serverController.getConnectionPipelineSettings();
+        serverController.setConnectionPipelineSettings(ConnectionPipelineSettings.builder()
+                .handshakeThreadsNumber(parseInt(commandLine, "handshake-threads", defaultPipelineSettings.getHandshakeThreadsNumber()))
+                .handshakeQueueCapacity(parseInt(commandLine, "handshake-queue-capacity",
+                        defaultPipelineSettings.getHandshakeQueueCapacity()))
+                .handshakeTimeoutMillis(commandLine.hasOption("handshake-timeout-millis")
+                        ? Long.parseLong(commandLine.getOptionValue("handshake-timeout-millis"))
+                        : defaultPipelineSettings.getHandshakeTimeoutMillis())
+                .build());
+
+        OutboundQueueSettings defaultQueueSettings = serverController.getOutboundQueueSettings();
+        serverController.setOutboundQueueSettings(OutboundQueueSettings.builder()
+                .capacity(parseInt(commandLine, "queue-capacity", defaultQueueSettings.getCapacity()))
+                .slowConsumerPolicy(SlowConsumerPolicy.valueOf(commandLine.getOptionValue(
+                        "slow-consumer-policy", defaultQueueSettings.getSlowConsumerPolicy().name())))
+                .blockTimeoutMillis(defaultQueueSettings.getBlockTimeoutMillis())
+                .maxFramesPerFlush(defaultQueueSettings.getMaxFramesPerFlush())
+                .flushDeadlineMicros(defaultQueueSettings.getFlushDeadlineMicros())
+                .build());
+
+        configureChatHistory(serverController, commandLine);
+
+        ReplaySettings defaultReplaySettings = serverController.getReplaySettings();
+        serverController.setReplaySettings(ReplaySettings.builder()
+                .maxMessagesNumber(parseInt(commandLine, "replay-messages", defaultReplaySettings.getMaxMessagesNumber()))
+                .maxBytesNumber(defaultReplaySettings.getMaxBytesNumber())
+                .build());
+
+        MetricsSettings defaultMetricsSettings = serverController.getMetricsSettings();
+        serverController.setMetricsSettings(MetricsSettings.builder()
+                .jmxEnabled(!commandLine.hasOption("no-jmx"))
+                .httpPort(parseInt(commandLine, "metrics-port", defaultMetricsSettings.getHttpPort()))
+                .rateIntervalMillis(defaultMetricsSettings.getRateIntervalMillis())
+                .build());
+
+        TraceSettings defaultTraceSettings = serverController.getTraceSettings();
+        serverController.setTraceSettings(TraceSettings.builder()
+                .sampleIntervalMessagesNumber(parseInt(commandLine, "trace-sample-interval",
+                        defaultTraceSettings.getSampleIntervalMessagesNumber()))
+                .traceWindowMillis(commandLine.hasOption("trace-window-millis")
+                        ? Long.parseLong(commandLine.getOptionValue("trace-window-millis"))
+                        : defaultTraceSettings.getTraceWindowMillis())
+                .maxActiveTracesNumber(defaultTraceSettings.getMaxActiveTracesNumber())
+                .build());
+
+        RateLimitSettings defaultRateLimitSettings = serverController.getRateLimitSettings();
+        serverController.setRateLimitSettings(RateLimitSettings.builder()
+                .userMessagesPerSecond(parseDouble(commandLine, "user-rate", defaultRateLimitSettings.getUserMessagesPerSecond()))
+                .userBurstMessagesNumber(parseInt(commandLine, "user-burst", defaultRateLimitSettings.getUserBurstMessagesNumber()))
+                .serverMessagesPerSecond(parseDouble(commandLine, "server-rate", defaultRateLimitSettings.getServerMessagesPerSecond()))
+                .serverBurstMessagesNumber(parseInt(commandLine, "server-burst", defaultRateLimitSettings.getServerBurstMessagesNumber()))
+                .userHistoryRequestsPerSecond(parseDouble(commandLine, "user-history-rate",
+                        defaultRateLimitSettings.getUserHistoryRequestsPerSecond()))
+                .userBurstHistoryRequestsNumber(parseInt(commandLine, "user-history-burst",
+                        defaultRateLimitSettings.getUserBurstHistoryRequestsNumber()))
+                .throttledNoticeEnabled(defaultRateLimitSettings.isThrottledNoticeEnabled())
+                .build());
+    }
+
+    private static void configureChatHistory(ServerController serverController, CommandLine commandLine) {
+        if (!commandLine.hasOption("history-dir")) {
+            for (String historyOptionName : new String[]{"history-segment-size", "history-segments", "history-retention-hours"}) {
+                if (commandLine.hasOption(historyOptionName)) {
+                    throw new IllegalArgumentException("--" + historyOptionName + " requires --history-dir");
+                }
+            }
+            return;
+        }
+
+        HistorySettings defaultHistorySettings = HistorySettings.builder().build();
+        serverController.setHistorySettings(HistorySettings.builder()
+                .directory(Path.of(commandLine.getOptionValue("history-dir")))
+                .segmentSizeBytes(parseInt(commandLine, "history-segment-size", defaultHistorySettings.getSegmentSizeBytes()))
+                .indexIntervalBytes(defaultHistorySettings.getIndexIntervalBytes())
+                .fsyncIntervalMillis(defaultHistorySettings.getFsyncIntervalMillis())
+                .fsyncBatchRecordsNumber(defaultHistorySettings.getFsyncBatchRecordsNumber())
+                .retainedSegmentsNumber(parseInt(commandLine, "history-segments", defaultHistorySettings.getRetainedSegmentsNumber()))
+                .retentionMillis(commandLine.hasOption("history-retention-hours")
+                        ? TimeUnit.HOURS.toMillis(Long.parseLong(commandLine.getOptionValue("history-retention-hours")))
+                        : defaultHistorySettings.getRetentionMillis())
+                .writerQueueCapacity(defaultHistorySettings.getWriterQueueCapacity())
+                .build());
+    }
+
+    private static int parseInt(CommandLine commandLine, String optionName, int defaultValue) {
+        return commandLine.hasOption(optionName) ? Integer.parseInt(commandLine.getOptionValue(optionName)) : defaultValue;
+    }
+
+    private static double parseDouble(CommandLine commandLine, String optionName, double defaultValue) {
+        return commandLine.hasOption(optionName) ? Double.parseDouble(commandLine.getOptionValue(optionName)) : defaultValue;
+    }
+}
@@ -0,0 +1,183 @@
+package server;
+
+import connection.UserConnection;
+import metrics.MetricsRegistry;
+import org.apache.log4j.Logger;
+import utilities.LatencyHistogram;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+public class MessageTracer {
+    private static final Logger tracesLogger = Logger.getLogger(MessageTracer.class);
+    private static final double NANOS_PER_MICRO = 1000.0;
+    private static final long UNKNOWN_RELAY_NANOS_TIME = -1;
+
+    private final Map<Long, MessageTrace> activeTraces = new ConcurrentHashMap<>();
+    private final LatencyHistogram serverToClientHistogram;
+    private final LatencyHistogram endToEndHistogram;
+
+    private volatile TraceSettings settings = TraceSettings.builder().build();
+
+    public MessageTracer(MetricsRegistry metricsRegistry) {
+        serverToClientHistogram = metricsRegistry.histogram("chat_trace_server_to_client_seconds",
+                "Time from the server receive to the echoed client receive of sampled messages");
+        endToEndHistogram = metricsRegistry.histogram("chat_trace_end_to_end_seconds",
+                "Time from the client send to the echoed client receive of sampled messages");
+    }
+
+    public TraceSettings getSettings() {
+        return settings;
+    }
+
+    public void setSettings(TraceSettings settings) {
+        this.settings = settings;
+    }
+
+    public boolean shouldTraceMessage(long sequenceId) {
+        TraceSettings currentSettings = settings;
+        int sampleInterval = currentSettings.getSampleIntervalMessagesNumber();
+        return sampleInterval > 0 && sequenceId % sampleInterval == 0
+                && activeTraces.size() < currentSettings.getMaxActiveTracesNumber();
+    }
+
+    public void startTrace(long sequenceId, String senderUsername, Long clientSentEpochNanos,
+                           long serverReceivedEpochNanos, UserConnection[] recipientsConnections) {
+        activeTraces.put(sequenceId, new MessageTrace(sequenceId, senderUsername, clientSentEpochNanos,
+                serverReceivedEpochNanos, recipientsConnections));
+    }
+
+    public void recordRelay(long sequenceId, long relayNanos) {
+        MessageTrace trace = activeTraces.get(sequenceId);
+        if (trace != null && trace.recordRelay(relayNanos)) {
+            completeTrace(trace);
+        }
+    }
+
+    public void recordEcho(long sequenceId, UserConnection recipientConnection, long clientReceivedEpochNanos) {
+        MessageTrace trace = activeTraces.get(sequenceId);
+        if (trace == null) {
+            return;
+        }
+
+        long serverToClientNanos = clientReceivedEpochNanos - trace.serverReceivedEpochNanos;
+        long endToEndNanos = trace.clientSentEpochNanos == null ? 0 : clientReceivedEpochNanos - trace.clientSentEpochNanos;
+        if (!trace.addEcho(recipientConnection, serverToClientNanos, endToEndNanos)) {
+            return;
+        }
+
+        serverToClientHistogram.recordValue(serverToClientNanos);
+        if (trace.clientSentEpochNanos != null) {
+            endToEndHistogram.recordValue(endToEndNanos);
+        }
+        if (trace.isComplete()) {
+            completeTrace(trace);
+        }
+    }
+
+    public void flushExpiredTraces() {
+        long expirationNanos = TimeUnit.MILLISECONDS.toNanos(settings.getTraceWindowMillis());
+        long currentNanos = System.nanoTime();
+        for (MessageTrace trace : activeTraces.values()) {
+            if (currentNanos - trace.startedNanos >= expirationNanos) {
+                completeTrace(trace);
+            }
+        }
+    }
+
+    public void flushAllTraces() {
+        for (MessageTrace trace : activeTraces.values()) {
+            completeTrace(trace);
+        }
+    }
+
+    public int getActiveTracesNumber() {
+        return activeTraces.size();
+    }
+
+    private void completeTrace(MessageTrace trace) {
+        if (activeTraces.remove(trace.sequenceId, trace)) {
+            tracesLogger.info(trace.buildTraceLine());
+        }
+    }
+
+    private static class MessageTrace {
+        private final long sequenceId;
+        private final String senderUsername;
+        private final Long clientSentEpochNanos;
+        private final long serverReceivedEpochNanos;
+        private final long startedNanos = System.nanoTime();
+        private final long[] serverToClientNanos;
+        private final long[] endToEndNanos;
+        private final Set<UserConnection> pendingRecipientsConnections = Collections.newSetFromMap(new IdentityHashMap<>());
+        private int echoesNumber;
+        private long relayNanos = UNKNOWN_RELAY_NANOS_TIME;
+
+        private MessageTrace(long sequenceId, String senderUsername, Long clientSentEpochNanos,
+                             long serverReceivedEpochNanos, UserConnection[] recipientsConnections) {
+            this.sequenceId = sequenceId;
+            this.senderUsername = senderUsername;
+            this.clientSentEpochNanos = clientSentEpochNanos;
+            this.serverReceivedEpochNanos = serverReceivedEpochNanos;
+            this.serverToClientNanos = new long[recipientsConnections.length];
+            this.endToEndNanos = new long[recipientsConnections.length];
+            this.pendingRecipientsConnections.addAll(Arrays.asList(recipientsConnections));
+        }
+
+        private synchronized boolean recordRelay(long relayNanos) {
+            this.relayNanos = relayNanos;
+            return isComplete();
+        }
+
+        private synchronized boolean addEcho(UserConnection recipientConnection, long serverToClientNanos, long endToEndNanos) {
+            if (!pendingRecipientsConnections.remove(recipientConnection)) {
+                return false;
+            }
+            this.serverToClientNanos[echoesNumber] = serverToClientNanos;
+            this.endToEndNanos[echoesNumber] = endToEndNanos;
+            echoesNumber++;
+            return true;
+        }
+
+        private synchronized boolean isComplete() {
+            return relayNanos != UNKNOWN_RELAY_NANOS_TIME && echoesNumber == serverToClientNanos.length;
+        }
+
+        private synchronized String buildTraceLine() {
+            StringBuilder traceLine = new StringBuilder()
+                    .append("seq=").append(sequenceId)
+                    .append(" sender=").append(senderUsername)
+                    .append(" client_sent=").append(clientSentEpochNanos == null ? "-" : clientSentEpochNanos)
+                    .append(" server_received=").append(serverReceivedEpochNanos)
+                    .append(" relay_us=").append(relayNanos == UNKNOWN_RELAY_NANOS_TIME
+                            ? "-" : String.format("%.1f", relayNanos / NANOS_PER_MICRO))
+                    .append(" recipients=").append(serverToClientNanos.length)
+                    .append(" echoes=").append(echoesNumber);
+            appendLatencySummary(traceLine, " server_to_client_us=", serverToClientNanos);
+            if (clientSentEpochNanos != null) {
+                appendLatencySummary(traceLine, " end_to_end_us=", endToEndNanos);
+            }
+            return traceLine.toString();
+        }
+
+        private void appendLatencySummary(StringBuilder traceLine, String summaryName, long[] latenciesNanos) {
+            if (echoesNumber == 0) {
+                return;
+            }
+
+            long[] sortedLatenciesNanos = Arrays.copyOf(latenciesNanos, echoesNumber);
+            Arrays.sort(sortedLatenciesNanos);
+            traceLine.append(summaryName)
+                    .append(String.format("%.1f/%.1f/%.1f/%.1f",
+                            sortedLatenciesNanos[0] / NANOS_PER_MICRO,
+                            sortedLatenciesNanos[(sortedLatenciesNanos.length - 1) / 2] / NANOS_PER_MICRO,
+                            sortedLatenciesNanos[(int) ((sortedLatenciesNanos.length - 1) * 0.99)] / NANOS_PER_MICRO,
+                            sortedLatenciesNanos[sortedLatenciesNanos.length - 1] / NANOS_PER_MICRO));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package server;
+
+import connection.Message;
+import connection.MessageType;
+
+import java.util.*;
+
+public class PresenceTracker {
+    private final Set<String> versionedUsernames = new HashSet<>();
+    private final Map<String, Boolean> pendingChanges = new LinkedHashMap<>();
+    private long presenceVersion;
+
+    public synchronized void recordUserAdded(String username) {
+        recordChange(username, true);
+    }
+
+    public synchronized void recordUserRemoved(String username) {
+        recordChange(username, false);
+    }
+
+    private void recordChange(String username, boolean isAdded) {
+        if (versionedUsernames.contains(username) == isAdded) {
+            pendingChanges.remove(username);
+        } else {
+            pendingChanges.put(username, isAdded);
+        }
+    }
+
+    public synchronized Message buildPendingDeltaMessage() {
+        if (pendingChanges.isEmpty()) {
+            return null;
+        }
+
+        Set<String> addedUsernames = new LinkedHashSet<>();
+        Set<String> removedUsernames = new LinkedHashSet<>();
+        for (Map.Entry<String, Boolean> pendingChange : pendingChanges.entrySet()) {
+            if (pendingChange.getValue()) {
+                addedUsernames.add(pendingChange.getKey());
+                versionedUsernames.add(pendingChange.getKey());
+            } else {
+                removedUsernames.add(pendingChange.getKey());
+                versionedUsernames.remove(pendingChange.getKey());
+            }
+        }
+        pendingChanges.clear();
+
+        long previousPresenceVersion = presenceVersion++;
+        return Message.builder()
+                .messageType(MessageType.PRESENCE_DELTA)
+                .connectedUsernames(addedUsernames)
+                .removedUsernames(removedUsernames)
+                .previousPresenceVersion(previousPresenceVersion)
+                .presenceVersion(presenceVersion)
+                .build();
+    }
+
+    public synchronized List<Message> buildSnapshotMessages(int pageSize) {
+        List<Message> snapshotMessages = new ArrayList<>(versionedUsernames.size() / pageSize + 1);
+        Iterator<String> usernamesIterator = versionedUsernames.iterator();
+        do {
+            Set<String> pageUsernames = new HashSet<>(Math.min(pageSize, versionedUsernames.size()) * 2);
+            while (usernamesIterator.hasNext() && pageUsernames.size() < pageSize) {
+                pageUsernames.add(usernamesIterator.next());
+            }
+            snapshotMessages.add(Message.builder()
+                    .messageType(MessageType.PRESENCE_SNAPSHOT)
+                    .connectedUsernames(pageUsernames)
+                    .presenceVersion(usernamesIterator.hasNext() ? null : presenceVersion)
+                    .build());
+        } while (usernamesIterator.hasNext());
+        return snapshotMessages;
+    }
+
+    public synchronized long getPresenceVersion() {
+        return presenceVersion;
+    }
+
+    public synchronized int getPendingChangesNumber() {
+        return pendingChanges.size();
+    }
+}
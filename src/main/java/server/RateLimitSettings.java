@@ -0,0 +1,29 @@
+package server;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Builder
+@Getter
+public class RateLimitSettings {
+    @Builder.Default
+    private final double userMessagesPerSecond = 20;
+
+    @Builder.Default
+    private final int userBurstMessagesNumber = 40;
+
+    @Builder.Default
+    private final double serverMessagesPerSecond = 5000;
+
+    @Builder.Default
+    private final int serverBurstMessagesNumber = 10000;
+
+    @Builder.Default
+    private final double userHistoryRequestsPerSecond = 1;
+
+    @Builder.Default
+    private final int userBurstHistoryRequestsNumber = 5;
+
+    @Builder.Default
+    private final boolean throttledNoticeEnabled = true;
+}
@@ -0,0 +1,113 @@
+package server;
+
+import connection.EncodedMessage;
+import connection.MessageCodec;
+import connection.MessageCodecType;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class ReplayBuffer {
+    private static final byte[] EMPTY_REPLAY = new byte[0];
+
+    private final long maxBytesNumber;
+
+    private final EncodedMessage[] messages;
+    private final int[] messagesSizes;
+    private int headIndex;
+    private int messagesNumber;
+    private long bytesNumber;
+
+    private final AtomicReferenceArray<byte[]> replayFrames = new AtomicReferenceArray<>(MessageCodecType.values().length);
+
+    public ReplayBuffer(ReplaySettings settings) {
+        this.maxBytesNumber = settings.getMaxBytesNumber();
+        this.messages = new EncodedMessage[Math.max(1, settings.getMaxMessagesNumber())];
+        this.messagesSizes = new int[messages.length];
+    }
+
+    public synchronized void append(EncodedMessage encodedMessage) {
+        int messageSize = encodedMessage.getBytes(MessageCodecType.BINARY.getCodec()).length;
+        if (messageSize > maxBytesNumber) {
+            return;
+        }
+
+        while (messagesNumber == messages.length || (messagesNumber > 0 && bytesNumber + messageSize > maxBytesNumber)) {
+            removeOldestMessage();
+        }
+
+        int tailIndex = (headIndex + messagesNumber) % messages.length;
+        messages[tailIndex] = encodedMessage;
+        messagesSizes[tailIndex] = messageSize;
+        messagesNumber++;
+        bytesNumber += messageSize;
+
+        for (int i = 0; i < replayFrames.length(); i++) {
+            replayFrames.set(i, null);
+        }
+    }
+
+    public byte[] getReplayBytes(MessageCodec codec) {
+        int codecIndex = codec.getType().ordinal();
+        byte[] replay = replayFrames.get(codecIndex);
+        if (replay != null) {
+            return replay;
+        }
+
+        synchronized (this) {
+            replay = replayFrames.get(codecIndex);
+            if (replay == null) {
+                replay = concatenateFrames(codec);
+                replayFrames.set(codecIndex, replay);
+            }
+            return replay;
+        }
+    }
+
+    public EncodedMessage buildReplayMessage(MessageCodec codec) {
+        return new ReplayMessage(codec, getReplayBytes(codec));
+    }
+
+    private byte[] concatenateFrames(MessageCodec codec) {
+        if (messagesNumber == 0) {
+            return EMPTY_REPLAY;
+        }
+
+        byte[][] frames = new byte[messagesNumber][];
+        int replayLength = 0;
+        for (int i = 0; i < messagesNumber; i++) {
+            frames[i] = messages[(headIndex + i) % messages.length].getBytes(codec);
+            replayLength += frames[i].length;
+        }
+
+        byte[] replay = new byte[replayLength];
+        int offset = 0;
+        for (byte[] frame : frames) {
+            System.arraycopy(frame, 0, replay, offset, frame.length);
+            offset += frame.length;
+        }
+        return replay;
+    }
+
+    private void removeOldestMessage() {
+        bytesNumber -= messagesSizes[headIndex];
+        messages[headIndex] = null;
+        headIndex = (headIndex + 1) % messages.length;
+        messagesNumber--;
+    }
+
+    private class ReplayMessage extends EncodedMessage {
+        private final MessageCodecType codecType;
+        private final byte[] replay;
+
+        private ReplayMessage(MessageCodec codec, byte[] replay) {
+            super(null);
+            this.codecType = codec.getType();
+            this.replay = replay;
+        }
+
+        @Override
+        public byte[] getBytes(MessageCodec codec) {
+            return codec.getType() == codecType ? replay : getReplayBytes(codec);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package server;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Builder
+@Getter
+public class ReplaySettings {
+    @Builder.Default
+    private final int maxMessagesNumber = 100;
+
+    @Builder.Default
+    private final long maxBytesNumber = 256 * 1024;
+}
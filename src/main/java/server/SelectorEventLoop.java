@@ -0,0 +1,125 @@
+package server;
+
+import connection.ChannelUserConnection;
+import connection.Message;
+
+import java.io.IOException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public final class SelectorEventLoop extends Thread {
+    private final Selector selector;
+
+    private final Queue<RegisteredConnection> pendingRegistrations = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean isRunning = true;
+
+    public SelectorEventLoop(String name) throws IOException {
+        super(name);
+        this.selector = Selector.open();
+        setDaemon(true);
+    }
+
+    public void register(ChannelUserConnection userConnection, UserMessagesHandler messagesHandler) {
+        pendingRegistrations.add(new RegisteredConnection(userConnection, messagesHandler));
+        selector.wakeup();
+    }
+
+    public void shutdown() {
+        isRunning = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (isRunning) {
+                selector.select();
+                registerPendingConnections();
+                processSelectedKeys();
+            }
+        } catch (IOException | ClosedSelectorException ignored) {
+        } finally {
+            closeSelector();
+        }
+    }
+
+    private void registerPendingConnections() {
+        RegisteredConnection registeredConnection;
+        while ((registeredConnection = pendingRegistrations.poll()) != null) {
+            SelectionKey selectionKey = null;
+            try {
+                ChannelUserConnection userConnection = registeredConnection.userConnection;
+                userConnection.getUserChannel().configureBlocking(false);
+                selectionKey = userConnection.getUserChannel().register(selector, SelectionKey.OP_READ, registeredConnection);
+                userConnection.attachSelectionKey(selectionKey);
+                dispatchMessages(selectionKey, registeredConnection, userConnection.takeBufferedMessages());
+            } catch (Exception exception) {
+                if (selectionKey != null) {
+                    selectionKey.cancel();
+                }
+                registeredConnection.messagesHandler.handleConnectionFailure(exception);
+            }
+        }
+    }
+
+    private void processSelectedKeys() {
+        Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+        while (selectedKeys.hasNext()) {
+            SelectionKey selectionKey = selectedKeys.next();
+            selectedKeys.remove();
+
+            RegisteredConnection registeredConnection = (RegisteredConnection) selectionKey.attachment();
+            try {
+                if (selectionKey.isValid() && selectionKey.isReadable()) {
+                    dispatchReceivedMessages(selectionKey, registeredConnection);
+                }
+                if (selectionKey.isValid() && selectionKey.isWritable()) {
+                    registeredConnection.userConnection.flushPendingWrites();
+                }
+            } catch (Exception exception) {
+                selectionKey.cancel();
+                registeredConnection.messagesHandler.handleConnectionFailure(exception);
+            }
+        }
+    }
+
+    private void dispatchReceivedMessages(SelectionKey selectionKey, RegisteredConnection registeredConnection) throws Exception {
+        dispatchMessages(selectionKey, registeredConnection, registeredConnection.userConnection.readAvailableMessages());
+    }
+
+    private void dispatchMessages(SelectionKey selectionKey, RegisteredConnection registeredConnection,
+                                  List<Message> messages) throws Exception {
+        for (Message message : messages) {
+            if (!selectionKey.isValid()) {
+                break;
+            }
+            registeredConnection.messagesHandler.handleMessageFromUser(message);
+        }
+    }
+
+    private void closeSelector() {
+        try {
+            for (SelectionKey selectionKey : selector.keys()) {
+                selectionKey.cancel();
+            }
+            selector.close();
+        } catch (IOException | ClosedSelectorException ignored) {
+        }
+    }
+
+    private static class RegisteredConnection {
+        private final ChannelUserConnection userConnection;
+        private final UserMessagesHandler messagesHandler;
+
+        private RegisteredConnection(ChannelUserConnection userConnection, UserMessagesHandler messagesHandler) {
+            this.userConnection = userConnection;
+            this.messagesHandler = messagesHandler;
+        }
+    }
+}
@@ -1,32 +1,166 @@
 package server;
 
 import connection.*;
+import history.ChatHistoryWriter;
+import history.HistoryLog;
+import history.HistoryRecord;
+import history.HistorySettings;
+import metrics.Counter;
+import metrics.MetricsHttpEndpoint;
+import metrics.MetricsRegistry;
+import metrics.MetricsSettings;
+import utilities.EpochNanosClock;
 import utilities.FormatMessagesBuilder;
+import utilities.LatencyHistogram;
+import utilities.TokenBucket;
 
+import javax.management.JMException;
 import java.io.IOException;
 import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.net.SocketException;
+import java.nio.channels.ServerSocketChannel;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
 
 public class ServerController {
     private ServerSocket serverSocket;
-    private ServerSwingView graphicView;
+    private ServerLogger serverLogger;
     private ServerModel serverModel;
     private SessionPasswordUpdater passwordUpdater;
 
     private volatile boolean hasServerStarted = false;
 
+    private volatile CountDownLatch serverStoppedLatch = new CountDownLatch(0);
+
+    private volatile ServerEngineMode engineMode = ServerEngineMode.POLLING;
+
+    private volatile boolean isBinaryCodecOffered = true;
+
+    private volatile OutboundQueueSettings outboundQueueSettings = OutboundQueueSettings.builder().build();
+
+    private volatile HistorySettings historySettings;
+
+    private volatile ReplaySettings replaySettings = ReplaySettings.builder().build();
+
+    private volatile RateLimitSettings rateLimitSettings = RateLimitSettings.builder().build();
+
+    private volatile SlowConsumerSettings slowConsumerSettings = SlowConsumerSettings.builder().build();
+
+    private volatile EngineThreadsSettings engineThreadsSettings = EngineThreadsSettings.builder().build();
+
+    private volatile MetricsSettings metricsSettings = MetricsSettings.builder().build();
+
+    private volatile ConnectionPipelineSettings connectionPipelineSettings = ConnectionPipelineSettings.builder().build();
+
     private static final int PASSWORD_EXPIRATION_MILLIS_TIME = 100000;
     private static final int POOL_DELAY_SECS_TIME = 1;
     private static final int INITIAL_POOL_DELAY_SECS_TIME = 0;
-    private static final int SCHEDULED_THREAD_POOL_CORE_SIZE = 10;
+    private static final int INBOUND_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_POOLED_INBOUND_BUFFERS_NUMBER = 256;
+    private static final long FIRST_MESSAGE_SEQUENCE_ID = 1;
+    private static final int MAX_ROOM_NAME_LENGTH = 64;
+    private static final int PRESENCE_SNAPSHOT_PAGE_SIZE = 1000;
+    private static final int PRESENCE_DELTA_INTERVAL_MILLIS_TIME = 250;
+    private static final int DEFAULT_HISTORY_PAGE_SIZE = 50;
+    private static final int MAX_HISTORY_PAGE_SIZE = 10000;
+    private static final int HISTORY_CHUNK_MESSAGES_NUMBER = 100;
+    private static final int HISTORY_BACKPRESSURE_CHECK_MILLIS_TIME = 100;
+    private static final int TRACES_FLUSH_INTERVAL_MILLIS_TIME = 1000;
+    private static final String METRICS_MBEAN_NAME = "server:type=Metrics";
 
     private final List<ServerObserver> observers = new ArrayList<>();
 
-    private final Map<Socket, ScheduledFuture<?>> scheduledActiveTasks = new HashMap<>();
+    private final MetricsRegistry metricsRegistry = new MetricsRegistry();
+    private final ConnectionMetrics connectionMetrics = new ConnectionMetrics(metricsRegistry);
+    private final Counter inboundMessagesCounter = metricsRegistry.counter(
+            "chat_messages_in_total", "Messages received from users");
+    private final Counter loginErrorsCounter = metricsRegistry.counter(
+            "chat_login_errors_total", "Rejected login attempts");
+    private final Counter throttledByUserLimitMessagesCounter = metricsRegistry.counter(
+            "chat_throttled_by_user_limit_total", "Messages dropped by the per-user rate limit");
+    private final Counter throttledByServerLimitMessagesCounter = metricsRegistry.counter(
+            "chat_throttled_by_server_limit_total", "Messages dropped by the server rate limit");
+    private final Counter throttledHistoryRequestsCounter = metricsRegistry.counter(
+            "chat_throttled_history_requests_total", "History requests rejected by the per-user limit");
+    private final Counter evictedSlowConsumersCounter = metricsRegistry.counter(
+            "chat_slow_consumer_evictions_total", "Users disconnected as slow consumers");
+    private final LatencyHistogram broadcastFanOutHistogram = metricsRegistry.histogram(
+            "chat_broadcast_fanout_seconds", "Time to hand a message to all of its recipients");
+    private final LatencyHistogram handshakeDurationHistogram = metricsRegistry.histogram(
+            "chat_handshake_seconds", "Time from the username request to the accepted login");
+    private final LatencyHistogram relayDurationHistogram = metricsRegistry.histogram(
+            "chat_relay_seconds", "Time from receiving a chat message to handing it to its last recipient");
+    private final MessageTracer messageTracer = new MessageTracer(metricsRegistry);
+    private volatile MetricsHttpEndpoint metricsHttpEndpoint;
+
+    private final Map<Socket, Future<?>> activeUserTasks = new ConcurrentHashMap<>();
+
+    private volatile ConnectionPipeline connectionPipeline;
+
+    private volatile ChatHistoryWriter chatHistoryWriter;
+
+    private volatile ReplayBuffer replayBuffer;
+
+    private volatile PresenceTracker presenceTracker = new PresenceTracker();
+
+    private volatile TokenBucket serverMessagesTokenBucket;
+    private volatile ScheduledExecutorService serverTasksScheduler;
+
+    private final Map<String, UserConnectionHandler> registeredUserHandlers = new ConcurrentHashMap<>();
+    private final Set<String> laggingUsernames = ConcurrentHashMap.newKeySet();
+
+    private final Object messagesSequenceLock = new Object();
+    private long nextMessageSequenceId = FIRST_MESSAGE_SEQUENCE_ID;
+
+    private volatile ScheduledExecutorService scheduledExecutor;
+    private volatile ExecutorService virtualThreadsExecutor;
+    private volatile ExecutorService outboundWritersExecutor;
+    private volatile ExecutorService historyReadersExecutor;
+    private final List<SelectorEventLoop> selectorEventLoops = new CopyOnWriteArrayList<>();
+    private final AtomicInteger nextSelectorEventLoopIndex = new AtomicInteger();
+    private final ByteBufferPool inboundBuffersPool = new ByteBufferPool(INBOUND_BUFFER_SIZE, MAX_POOLED_INBOUND_BUFFERS_NUMBER);
+
+    public ServerController() {
+        registerServerGauges();
+    }
+
+    private void registerServerGauges() {
+        metricsRegistry.gauge("chat_online_users", "Users online",
+                () -> serverModel == null ? 0 : serverModel.getOnlineUsersConnections().size());
+        metricsRegistry.gauge("chat_lagging_users", "Users lagging behind their outbound messages",
+                laggingUsernames::size);
+        metricsRegistry.gauge("chat_handshake_queue_depth", "Connections waiting for the handshake stage",
+                () -> connectionPipeline == null ? 0 : connectionPipeline.getHandshakeQueueDepth());
+        metricsRegistry.gauge("chat_active_handshakes", "Handshakes in progress",
+                () -> connectionPipeline == null ? 0 : connectionPipeline.getActiveHandshakesNumber());
+        metricsRegistry.gauge("chat_registration_queue_depth", "Logins waiting for the registration stage",
+                () -> connectionPipeline == null ? 0 : connectionPipeline.getRegistrationQueueDepth());
+        metricsRegistry.gauge("chat_history_queue_depth", "Messages waiting for the chat history writer",
+                () -> chatHistoryWriter == null ? 0 : chatHistoryWriter.getPendingRecordsNumber());
+        metricsRegistry.gauge("chat_outbound_queue_depth", "Messages queued to all online users",
+                () -> sumOverOnlineConnections(UserConnection::getOutboundQueueSize));
+        metricsRegistry.gauge("chat_outbound_dropped_frames", "Messages dropped from the outbound queues of online users",
+                () -> sumOverOnlineConnections(UserConnection::getDroppedFramesNumber));
+        metricsRegistry.gauge("chat_active_traces", "Sampled messages waiting for the echoes of their recipients",
+                messageTracer::getActiveTracesNumber);
+    }
+
+    private double sumOverOnlineConnections(ToLongFunction<UserConnection> valueFunction) {
+        if (serverModel == null) {
+            return 0;
+        }
+        long sum = 0;
+        for (UserConnection userConnection : serverModel.getOnlineUsersConnectionsSnapshot()) {
+            sum += valueFunction.applyAsLong(userConnection);
+        }
+        return sum;
+    }
 
     public synchronized void launch() {
         while (true) {
@@ -37,9 +171,8 @@ public class ServerController {
 
                 acceptNewUserConnections();
             } catch (InterruptedException e) {
-                graphicView.addServiceMessageToServerLogsTextArea(FormatMessagesBuilder.buildMessageWithDateNow(
-                        "Server main thread was stopped by interrupt"));
-                graphicView.addServiceMessageToServerLogsTextArea(Arrays.toString(e.getStackTrace()));
+                serverLogger.logServiceMessage("Server main thread was stopped by interrupt");
+                serverLogger.logServiceMessage(Arrays.toString(e.getStackTrace()));
             }
         }
     }
@@ -66,12 +199,148 @@ public class ServerController {
         return hasServerStarted;
     }
 
+    public ServerEngineMode getEngineMode() {
+        return engineMode;
+    }
+
+    public void setEngineMode(ServerEngineMode engineMode) {
+        this.engineMode = engineMode;
+    }
+
+    public String getServerStatistics() {
+        ConnectionPipeline currentPipeline = connectionPipeline;
+        if (currentPipeline == null) {
+            return "Server is not running yet";
+        }
+
+        long flushesNumber = 0;
+        long flushedFramesNumber = 0;
+        for (UserConnection userConnection : serverModel.getOnlineUsersConnectionsSnapshot()) {
+            flushesNumber += userConnection.getFlushStatistics().getFlushesNumber();
+            flushedFramesNumber += userConnection.getFlushStatistics().getFlushedFramesNumber();
+        }
+        ChatHistoryWriter currentHistoryWriter = chatHistoryWriter;
+        return currentPipeline.toString() +
+                (currentHistoryWriter == null ? "" : currentHistoryWriter.toString()) +
+                "Messages throttled by user limit: " + getThrottledByUserLimitMessagesNumber() + "\n" +
+                "Messages throttled by server limit: " + getThrottledByServerLimitMessagesNumber() + "\n" +
+                "Lagging users: " + laggingUsernames.size() + "\n" +
+                "Slow consumers evicted: " + getEvictedSlowConsumersNumber() + "\n" +
+                "Outbound flushes: " + flushesNumber + "\n" +
+                "Outbound flushed frames: " + flushedFramesNumber + "\n" +
+                "Average frames per flush: " + String.format("%.2f", flushesNumber == 0 ? 0.0 : (double) flushedFramesNumber / flushesNumber) + "\n";
+    }
+
+    public boolean isBinaryCodecOffered() {
+        return isBinaryCodecOffered;
+    }
+
+    public void setBinaryCodecOffered(boolean isBinaryCodecOffered) {
+        this.isBinaryCodecOffered = isBinaryCodecOffered;
+    }
+
+    public OutboundQueueSettings getOutboundQueueSettings() {
+        return outboundQueueSettings;
+    }
+
+    public void setOutboundQueueSettings(OutboundQueueSettings outboundQueueSettings) {
+        this.outboundQueueSettings = outboundQueueSettings;
+    }
+
+    public HistorySettings getHistorySettings() {
+        return historySettings;
+    }
+
+    public void setHistorySettings(HistorySettings historySettings) {
+        this.historySettings = historySettings;
+    }
+
+    public ReplaySettings getReplaySettings() {
+        return replaySettings;
+    }
+
+    public void setReplaySettings(ReplaySettings replaySettings) {
+        this.replaySettings = replaySettings;
+    }
+
+    public RateLimitSettings getRateLimitSettings() {
+        return rateLimitSettings;
+    }
+
+    public void setRateLimitSettings(RateLimitSettings rateLimitSettings) {
+        this.rateLimitSettings = rateLimitSettings;
+    }
+
+    public SlowConsumerSettings getSlowConsumerSettings() {
+        return slowConsumerSettings;
+    }
+
+    public void setSlowConsumerSettings(SlowConsumerSettings slowConsumerSettings) {
+        this.slowConsumerSettings = slowConsumerSettings;
+    }
+
+    public MetricsSettings getMetricsSettings() {
+        return metricsSettings;
+    }
+
+    public void setMetricsSettings(MetricsSettings metricsSettings) {
+        this.metricsSettings = metricsSettings;
+    }
+
+    public TraceSettings getTraceSettings() {
+        return messageTracer.getSettings();
+    }
+
+    public void setTraceSettings(TraceSettings traceSettings) {
+        messageTracer.setSettings(traceSettings);
+    }
+
+    public MetricsRegistry getMetricsRegistry() {
+        return metricsRegistry;
+    }
+
+    public EngineThreadsSettings getEngineThreadsSettings() {
+        return engineThreadsSettings;
+    }
+
+    public void setEngineThreadsSettings(EngineThreadsSettings engineThreadsSettings) {
+        this.engineThreadsSettings = engineThreadsSettings;
+    }
+
+    public ConnectionPipelineSettings getConnectionPipelineSettings() {
+        return connectionPipelineSettings;
+    }
+
+    public void setConnectionPipelineSettings(ConnectionPipelineSettings connectionPipelineSettings) {
+        this.connectionPipelineSettings = connectionPipelineSettings;
+    }
+
+    public long getEvictedSlowConsumersNumber() {
+        return evictedSlowConsumersCounter.getCount();
+    }
+
+    public Set<String> getLaggingUsernames() {
+        return Set.copyOf(laggingUsernames);
+    }
+
+    public long getThrottledByUserLimitMessagesNumber() {
+        return throttledByUserLimitMessagesCounter.getCount();
+    }
+
+    public long getThrottledByServerLimitMessagesNumber() {
+        return throttledByServerLimitMessagesCounter.getCount();
+    }
+
+    private static TokenBucket createTokenBucket(double tokensPerSecond, int burstTokensNumber) {
+        return tokensPerSecond > 0 ? new TokenBucket(tokensPerSecond, burstTokensNumber) : null;
+    }
+
     public ServerModel getServerModel() {
         return serverModel;
     }
 
-    public void setGraphicView(ServerSwingView graphicView) {
-        this.graphicView = graphicView;
+    public void setServerLogger(ServerLogger serverLogger) {
+        this.serverLogger = serverLogger;
     }
 
     public void setServerModel(ServerModel serverModel) {
@@ -80,20 +349,28 @@ public class ServerController {
 
     protected void startServerOnPort(int port) throws Exception {
         try {
-            serverSocket = new ServerSocket(port);
+            serverSocket = createServerSocket(port);
+            serverStoppedLatch = new CountDownLatch(1);
 
             generateNewSessionPassword();
             passwordUpdater = new SessionPasswordUpdater();
             passwordUpdater.start();
-            graphicView.addServiceMessageToServerLogsTextArea(FormatMessagesBuilder.buildMessageWithDateNow(
-                    "Server has launched on port " + port));
+            serverLogger.logServiceMessage("Server has launched on port " + port + " in " + engineMode + " mode");
         } catch (Exception exception) {
-            graphicView.addServiceMessageToServerLogsTextArea(FormatMessagesBuilder.buildMessageWithDateNow(
-                    "Couldn't launch the server"));
+            serverLogger.logServiceMessage("Couldn't launch the server");
             throw exception;
         }
     }
 
+    private ServerSocket createServerSocket(int port) throws IOException {
+        if (engineMode == ServerEngineMode.SELECTOR) {
+            ServerSocketChannel serverSocketChannel = ServerSocketChannel.open();
+            serverSocketChannel.bind(new InetSocketAddress(port));
+            return serverSocketChannel.socket();
+        }
+        return new ServerSocket(port);
+    }
+
     protected void stopServer() {
         String finalMessage = null;
         try {
@@ -108,18 +385,16 @@ public class ServerController {
         } catch (Exception exception) {
             finalMessage = "Couldn't stop the server. Try again...";
         } finally {
-            graphicView.addServiceMessageToServerLogsTextArea(FormatMessagesBuilder.buildMessageWithDateNow(finalMessage));
+            serverLogger.logServiceMessage(finalMessage);
         }
     }
 
     protected void generateNewSessionPassword() {
         if (hasServerStarted) {
             serverModel.updateCurrentSessionPassword();
-            graphicView.addServiceMessageToServerLogsTextArea(FormatMessagesBuilder.buildMessageWithDateNow(
-                    "Password for current session: " + serverModel.getCurrentSessionPassword()));
+            serverLogger.logServiceMessage("Password for current session: " + serverModel.getCurrentSessionPassword());
         } else {
-            graphicView.addServiceMessageToServerLogsTextArea(FormatMessagesBuilder.buildMessageWithDateNow(
-                    "Invalid operation. Server is not running yet"));
+            serverLogger.logServiceMessage("Invalid operation. Server is not running yet");
         }
     }
 
@@ -127,74 +402,361 @@ public class ServerController {
         if (hasServerStarted) {
             return serverModel.getCurrentSessionPassword();
         } else {
-            graphicView.addServiceMessageToServerLogsTextArea(FormatMessagesBuilder.buildMessageWithDateNow(
-                    "Invalid operation. Server is not running yet"));
+            serverLogger.logServiceMessage("Invalid operation. Server is not running yet");
             throw new ConnectException();
         }
     }
 
-    private void closeConnectionsWithAllUsers() throws IOException {
-        Map<String, UserConnection> onlineUsersConnections = serverModel.getOnlineUsersConnections();
+    private void closeConnectionsWithAllUsers() {
+        Map<String, UserConnection> onlineUsersConnections = serverModel.removeAllUsers();
         for (UserConnection userConnection : onlineUsersConnections.values()) {
-            userConnection.close();
+            try {
+                userConnection.close();
+            } catch (IOException exception) {
+                serverLogger.logServiceMessage("Couldn't close a user connection: " + exception.getMessage());
+            }
         }
         for (String username : onlineUsersConnections.keySet()) {
             notifyObservers(new Message(MessageType.NOTIFY_REMOVE, username));
         }
-
-        serverModel.getOnlineUsersConnections().clear();
-        serverModel.getOnlineUsersMetaInfos().clear();
     }
 
     protected void acceptNewUserConnections() {
-        ScheduledExecutorService executor = Executors.newScheduledThreadPool(SCHEDULED_THREAD_POOL_CORE_SIZE);
+        connectionPipeline = new ConnectionPipeline(connectionPipelineSettings);
+        replayBuffer = new ReplayBuffer(replaySettings);
+        presenceTracker = new PresenceTracker();
+        serverMessagesTokenBucket = createTokenBucket(
+                rateLimitSettings.getServerMessagesPerSecond(), rateLimitSettings.getServerBurstMessagesNumber());
+        synchronized (messagesSequenceLock) {
+            nextMessageSequenceId = FIRST_MESSAGE_SEQUENCE_ID;
+        }
+        startChatHistory();
+        startUserMessagesEngine();
+        startMetricsExposure();
 
         while (true) {
             try {
-
                 Socket socket = serverSocket.accept();
 
-                UserConnectionHandler connectionHandler = new UserConnectionHandler(socket);
-                connectionHandler.connectNewUser(new UserConnection(socket));
-                ScheduledFuture<?> scheduledFuture =
-                        executor.scheduleWithFixedDelay(connectionHandler,
-                                INITIAL_POOL_DELAY_SECS_TIME,
-                                POOL_DELAY_SECS_TIME, TimeUnit.SECONDS);
-                scheduledActiveTasks.put(socket, scheduledFuture);
-            } catch (ConnectException e) {
-                graphicView.addServiceMessageToServerLogsTextArea(FormatMessagesBuilder.buildMessageWithDateNow(
-                        "An error occurred when connecting a new user"));
+                if (!connectionPipeline.submitHandshake(() -> connectNewUserAndStartHandling(socket))) {
+                    socket.close();
+                    serverLogger.logServiceMessage(
+                            "The handshake queue is full, the connection from " + socket.getRemoteSocketAddress() + " was rejected");
+                }
             } catch (Exception e) {
-                graphicView.addServiceMessageToServerLogsTextArea(FormatMessagesBuilder.buildMessageWithDateNow(
-                        "Connection to the server is lost"));
+                serverLogger.logServiceMessage("Connection to the server is lost");
                 hasServerStarted = false;
                 break;
             }
         }
+
+        try {
+            connectionPipeline.shutdown();
+            stopMetricsExposure();
+            stopUserMessagesEngine();
+            stopChatHistory();
+        } finally {
+            serverStoppedLatch.countDown();
+        }
+    }
+
+    public boolean awaitServerStopped(long timeoutMillis) throws InterruptedException {
+        return serverStoppedLatch.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void startMetricsExposure() {
+        MetricsSettings currentMetricsSettings = metricsSettings;
+        if (currentMetricsSettings.isJmxEnabled()) {
+            try {
+                metricsRegistry.registerMBean(METRICS_MBEAN_NAME);
+            } catch (JMException exception) {
+                serverLogger.logServiceMessage("Couldn't register the metrics MBean: " + exception.getMessage());
+            }
+        }
+
+        if (currentMetricsSettings.getHttpPort() > 0) {
+            try {
+                metricsHttpEndpoint = new MetricsHttpEndpoint(metricsRegistry, currentMetricsSettings.getHttpPort());
+                metricsHttpEndpoint.start();
+                serverLogger.logServiceMessage("Metrics are served on http://localhost:" + metricsHttpEndpoint.getPort() + "/metrics");
+            } catch (IOException exception) {
+                metricsHttpEndpoint = null;
+                serverLogger.logServiceMessage("Couldn't open the metrics endpoint: " + exception.getMessage());
+            }
+        }
+    }
+
+    private void stopMetricsExposure() {
+        if (metricsHttpEndpoint != null) {
+            metricsHttpEndpoint.stop();
+            metricsHttpEndpoint = null;
+        }
+
+        try {
+            metricsRegistry.unregisterMBean();
+        } catch (JMException exception) {
+            serverLogger.logServiceMessage("Couldn't unregister the metrics MBean: " + exception.getMessage());
+        }
+    }
+
+    private void startChatHistory() {
+        HistorySettings currentHistorySettings = historySettings;
+        if (currentHistorySettings == null) {
+            return;
+        }
+
+        try {
+            chatHistoryWriter = new ChatHistoryWriter(HistoryLog.open(currentHistorySettings), currentHistorySettings,
+                    exception -> serverLogger.logServiceMessage("Couldn't write a message to the chat history: " + exception.getMessage()));
+            chatHistoryWriter.start();
+            synchronized (messagesSequenceLock) {
+                nextMessageSequenceId = chatHistoryWriter.getHistoryLog().getLastSequenceId() + 1;
+            }
+            fillReplayBufferFromChatHistory(chatHistoryWriter.getHistoryLog());
+        } catch (IOException exception) {
+            serverLogger.logServiceMessage(
+                    "Couldn't open the chat history in " + currentHistorySettings.getDirectory() + ", the server runs without history");
+        }
+    }
+
+    private void fillReplayBufferFromChatHistory(HistoryLog historyLog) {
+        long fromSequenceId = Math.max(historyLog.getFirstSequenceId(),
+                historyLog.getLastSequenceId() - replaySettings.getMaxMessagesNumber() + 1);
+        for (HistoryRecord record : historyLog.readRecords(fromSequenceId, replaySettings.getMaxMessagesNumber())) {
+            try {
+                replayBuffer.append(new EncodedMessage(record.toMessage()));
+            } catch (ProtocolException exception) {
+                serverLogger.logServiceMessage("Couldn't decode the chat history record " + record.sequenceId());
+            }
+        }
+    }
+
+    private void stopChatHistory() {
+        if (chatHistoryWriter != null) {
+            chatHistoryWriter.shutdown();
+            chatHistoryWriter = null;
+        }
+    }
+
+    private void connectNewUserAndStartHandling(Socket socket) {
+        try {
+            UserConnectionHandler connectionHandler = new UserConnectionHandler(socket);
+            connectionHandler.connectNewUser(createUserConnection(socket));
+            startHandlingUserMessages(socket, connectionHandler);
+        } catch (Exception e) {
+            serverLogger.logServiceMessage("An error occurred when connecting a new user");
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private UserConnection createUserConnection(Socket socket) throws IOException {
+        UserConnection userConnection = engineMode == ServerEngineMode.SELECTOR
+                ? new ChannelUserConnection(socket.getChannel(), outboundQueueSettings, inboundBuffersPool)
+                : new StreamUserConnection(socket, outboundQueueSettings, outboundWritersExecutor);
+        userConnection.setConnectionMetrics(connectionMetrics);
+        return userConnection;
+    }
+
+    private void startUserMessagesEngine() {
+        outboundWritersExecutor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("outbound-writer-", 0).factory());
+        historyReadersExecutor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("history-reader-", 0).factory());
+        serverTasksScheduler = Executors.newSingleThreadScheduledExecutor(
+                runnable -> new Thread(runnable, "server-tasks"));
+        serverTasksScheduler.scheduleWithFixedDelay(this::broadcastPendingPresenceDelta,
+                PRESENCE_DELTA_INTERVAL_MILLIS_TIME, PRESENCE_DELTA_INTERVAL_MILLIS_TIME, TimeUnit.MILLISECONDS);
+        serverTasksScheduler.scheduleAtFixedRate(metricsRegistry::updateRates,
+                metricsSettings.getRateIntervalMillis(), metricsSettings.getRateIntervalMillis(), TimeUnit.MILLISECONDS);
+        serverTasksScheduler.scheduleWithFixedDelay(this::checkSlowConsumers,
+                slowConsumerSettings.getCheckIntervalMillis(), slowConsumerSettings.getCheckIntervalMillis(), TimeUnit.MILLISECONDS);
+        serverTasksScheduler.scheduleWithFixedDelay(messageTracer::flushExpiredTraces,
+                TRACES_FLUSH_INTERVAL_MILLIS_TIME, TRACES_FLUSH_INTERVAL_MILLIS_TIME, TimeUnit.MILLISECONDS);
+
+        if (engineMode == ServerEngineMode.SELECTOR) {
+            for (int i = 0; i < engineThreadsSettings.getSelectorEventLoopsNumber(); i++) {
+                try {
+                    SelectorEventLoop eventLoop = new SelectorEventLoop("selector-event-loop-" + i);
+                    eventLoop.start();
+                    selectorEventLoops.add(eventLoop);
+                } catch (IOException exception) {
+                    serverLogger.logServiceMessage("Couldn't open a selector for the event loop");
+                }
+            }
+        } else if (engineMode == ServerEngineMode.VIRTUAL_THREADS) {
+            virtualThreadsExecutor = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("user-connection-", 0).factory());
+        } else {
+            scheduledExecutor = Executors.newScheduledThreadPool(engineThreadsSettings.getPollingThreadsNumber());
+        }
+    }
+
+    private void stopUserMessagesEngine() {
+        for (SelectorEventLoop eventLoop : selectorEventLoops) {
+            eventLoop.shutdown();
+        }
+        selectorEventLoops.clear();
+
+        if (scheduledExecutor != null) {
+            scheduledExecutor.shutdownNow();
+            scheduledExecutor = null;
+        }
+
+        if (virtualThreadsExecutor != null) {
+            virtualThreadsExecutor.shutdownNow();
+            virtualThreadsExecutor = null;
+        }
+
+        if (outboundWritersExecutor != null) {
+            outboundWritersExecutor.shutdownNow();
+            outboundWritersExecutor = null;
+        }
+
+        if (historyReadersExecutor != null) {
+            historyReadersExecutor.shutdownNow();
+            historyReadersExecutor = null;
+        }
+
+        if (serverTasksScheduler != null) {
+            serverTasksScheduler.shutdownNow();
+            serverTasksScheduler = null;
+        }
+        messageTracer.flushAllTraces();
+        activeUserTasks.clear();
+        registeredUserHandlers.clear();
+        laggingUsernames.clear();
+    }
+
+    private void startHandlingUserMessages(Socket socket, UserConnectionHandler connectionHandler) throws ConnectException {
+        UserConnection userConnection = connectionHandler.userRecord.getUserConnection();
+
+        if (engineMode == ServerEngineMode.SELECTOR) {
+            if (selectorEventLoops.isEmpty()) {
+                throw new ConnectException("There are no running event loops");
+            }
+            int eventLoopIndex = Math.floorMod(nextSelectorEventLoopIndex.getAndIncrement(), selectorEventLoops.size());
+            SelectorEventLoop eventLoop = selectorEventLoops.get(eventLoopIndex);
+            eventLoop.register((ChannelUserConnection) userConnection, connectionHandler);
+        } else if (engineMode == ServerEngineMode.VIRTUAL_THREADS) {
+            activeUserTasks.put(socket, virtualThreadsExecutor.submit(connectionHandler::receiveMessagesUntilDisconnect));
+        } else {
+            ScheduledFuture<?> scheduledFuture =
+                    scheduledExecutor.scheduleWithFixedDelay(connectionHandler,
+                            INITIAL_POOL_DELAY_SECS_TIME,
+                            POOL_DELAY_SECS_TIME, TimeUnit.SECONDS);
+            activeUserTasks.put(socket, scheduledFuture);
+        }
     }
 
     protected void sendBroadcastMessage(Message message) {
-        for (UserConnection userConnection : serverModel.getOnlineUsersConnections().values()) {
+        sendBroadcastMessage(new EncodedMessage(message));
+    }
+
+    protected void sendBroadcastMessage(EncodedMessage encodedMessage) {
+        sendMessageToConnections(serverModel.getOnlineUsersConnectionsSnapshot(), encodedMessage);
+    }
+
+    private void broadcastPendingPresenceDelta() {
+        try {
+            Message presenceDelta = presenceTracker.buildPendingDeltaMessage();
+            if (presenceDelta != null) {
+                sendMessageToConnections(selectConnectionsByPresenceProtocol(true), new EncodedMessage(presenceDelta));
+            }
+        } catch (Exception exception) {
+            serverLogger.logServiceMessage("Couldn't broadcast the presence update: " + exception.getMessage());
+        }
+    }
+
+    private void sendLegacyPresenceChange(MessageType messageType, String username) {
+        ScheduledExecutorService currentServerTasksScheduler = serverTasksScheduler;
+        if (currentServerTasksScheduler == null) {
+            return;
+        }
+
+        try {
+            currentServerTasksScheduler.execute(() -> broadcastLegacyPresenceChange(messageType, username));
+        } catch (RejectedExecutionException ignored) {
+        }
+    }
+
+    private void broadcastLegacyPresenceChange(MessageType messageType, String username) {
+        UserConnection[] legacyConnections = selectConnectionsByPresenceProtocol(false);
+        if (legacyConnections.length > 0) {
+            sendMessageToConnections(legacyConnections, new EncodedMessage(new Message(messageType, username)));
+        }
+    }
+
+    private UserConnection[] selectConnectionsByPresenceProtocol(boolean isPresenceDeltasEnabled) {
+        UserConnection[] onlineConnections = serverModel.getOnlineUsersConnectionsSnapshot();
+        int selectedConnectionsNumber = 0;
+        UserConnection[] selectedConnections = new UserConnection[onlineConnections.length];
+        for (UserConnection userConnection : onlineConnections) {
+            if (userConnection.isPresenceDeltasEnabled() == isPresenceDeltasEnabled) {
+                selectedConnections[selectedConnectionsNumber++] = userConnection;
+            }
+        }
+        return Arrays.copyOf(selectedConnections, selectedConnectionsNumber);
+    }
+
+    private void sendPresenceSnapshot(UserConnection userConnection) {
+        for (Message snapshotPage : presenceTracker.buildSnapshotMessages(PRESENCE_SNAPSHOT_PAGE_SIZE)) {
+            userConnection.enqueue(snapshotPage);
+        }
+    }
+
+    protected void sendRoomMessage(String roomName, EncodedMessage encodedMessage) {
+        sendMessageToConnections(serverModel.getRoomMembersConnectionsSnapshot(roomName), encodedMessage);
+    }
+
+    private void sendMessageToConnections(UserConnection[] usersConnections, EncodedMessage encodedMessage) {
+        long fanOutStartNanos = System.nanoTime();
+        for (UserConnection userConnection : usersConnections) {
             try {
-                userConnection.send(message);
+                userConnection.send(encodedMessage);
             } catch (Exception e) {
-                graphicView.addServiceMessageToServerLogsTextArea(FormatMessagesBuilder.buildMessageWithDateNow(
-                        "Error sending a message to all users"));
+                serverLogger.logServiceMessage("Error sending a message to all users");
+            }
+        }
+        broadcastFanOutHistogram.recordValue(System.nanoTime() - fanOutStartNanos);
+    }
+
+    private void checkSlowConsumers() {
+        SlowConsumerSettings currentSettings = slowConsumerSettings;
+        for (UserConnectionHandler connectionHandler : registeredUserHandlers.values()) {
+            try {
+                connectionHandler.checkOutboundLag(currentSettings);
+            } catch (RuntimeException exception) {
+                serverLogger.logServiceMessage("An error occurred when checking the outbound lag of a user");
             }
         }
     }
 
-    private class UserConnectionHandler implements Runnable {
+    private class UserConnectionHandler implements Runnable, UserMessagesHandler {
         private final Socket userSocket;
         private ChatUserRecord userRecord;
+        private volatile boolean isUserOnline = true;
+        private volatile boolean isUserRegistered = false;
+        private final TokenBucket userMessagesTokenBucket;
+        private final TokenBucket userHistoryRequestsTokenBucket;
+        private final AtomicBoolean isHistoryReadInProgress = new AtomicBoolean(false);
+        private volatile boolean isThrottledNoticeSent = false;
 
         public UserConnectionHandler(Socket userSocket) {
             this.userSocket = userSocket;
+            this.userMessagesTokenBucket = createTokenBucket(
+                    rateLimitSettings.getUserMessagesPerSecond(), rateLimitSettings.getUserBurstMessagesNumber());
+            this.userHistoryRequestsTokenBucket = createTokenBucket(
+                    rateLimitSettings.getUserHistoryRequestsPerSecond(), rateLimitSettings.getUserBurstHistoryRequestsNumber());
         }
 
         public void connectNewUser(UserConnection userConnection) throws ConnectException {
-            while (true) {
-                try {
+            long handshakeStartNanos = System.nanoTime();
+            ScheduledFuture<?> handshakeTimeout = connectionPipeline.scheduleHandshakeTimeout(userConnection);
+            try {
+                while (true) {
                     Message responseForUsername = requestUsernameFromNewUser(userConnection);
                     Message responseForPassword = requestCurrentSessionPasswordFromNewUser(userConnection);
 
@@ -202,40 +764,84 @@ public class ServerController {
 
                     if (MessageType.isTypeNewUsername(responseForUsername.getMessageType())
                             && MessageType.isTypeNewPassword(responseForPassword.getMessageType())
-                            && isUsernameAvailableToAdd(userRecord.getUsername())
-                            && serverModel.isCurrentSessionPasswordCorrect(responseForPassword.getMessageText())) {
-                        addNewUserToServerModel();
-                        sendToNewUserAllOnlineUsernamesByConnection(userConnection);
-                        sendBroadcastMessage(new Message(MessageType.NEW_USER_ADDED, userRecord.getUsername()));
-                        graphicView.addServiceMessageToServerLogsTextArea(FormatMessagesBuilder.buildMessageWithDateNow(
-                                "A new user connected with a remote socket " + userSocket.getRemoteSocketAddress().toString()));
+                            && serverModel.isCurrentSessionPasswordCorrect(responseForPassword.getMessageText())
+                            && connectionPipeline.registerNewUser(this::registerNewUser)) {
+                        handshakeDurationHistogram.recordValue(System.nanoTime() - handshakeStartNanos);
+                        serverLogger.logServiceMessage(
+                                "A new user connected with a remote socket " + userSocket.getRemoteSocketAddress().toString());
                         break;
                     } else {
+                        loginErrorsCounter.increment();
                         userConnection.send(new Message(MessageType.LOGIN_ERROR));
                     }
-                } catch (Exception exception) {
-                    cancelScheduledActiveTask();
-                    removeUserFromServerModel();
-                    throw new ConnectException();
                 }
+            } catch (Exception exception) {
+                cancelActiveUserTask();
+                removeUserFromServerModel();
+                throw new ConnectException();
+            } finally {
+                handshakeTimeout.cancel(false);
             }
         }
 
-        private void addNewUserToServerModel() {
-            serverModel.addNewUserConnection(userRecord.getUsername(), userRecord.getUserConnection());
-            serverModel.addNewUserMetaInfo(userRecord.getUsername(),
-                    UserMetaInfo.builder()
-                            .firstConnectionTime(FormatMessagesBuilder.buildDateNow())
-                            .username(userRecord.getUsername())
-                            .allSentMessagesNumber(0)
-                            .lastMessageTime(FormatMessagesBuilder.buildDateNow())
-                            .build());
-            notifyObservers(new Message(MessageType.NOTIFY_ADD, userRecord.getUsername()));
+        private boolean registerNewUser() {
+            if (!isUsernameAvailableToAdd(userRecord.getUsername()) || !addNewUserToServerModel()) {
+                return false;
+            }
+
+            isUserRegistered = true;
+            registeredUserHandlers.put(userRecord.getUsername(), this);
+            Message.MessageBuilder loginAcceptedMessageBuilder = Message.builder()
+                    .messageType(MessageType.LOGIN_ACCEPTED)
+                    .sequenceId(getNextMessageSequenceId());
+            if (userRecord.getUserConnection().isPresenceDeltasEnabled()) {
+                userRecord.getUserConnection().enqueue(loginAcceptedMessageBuilder.build());
+                sendPresenceSnapshot(userRecord.getUserConnection());
+            } else {
+                userRecord.getUserConnection().enqueue(loginAcceptedMessageBuilder
+                        .connectedUsernames(serverModel.getOnlineUsernames())
+                        .build());
+            }
+            replayRecentMessagesToNewUser(userRecord.getUserConnection());
+            sendLegacyPresenceChange(MessageType.NEW_USER_ADDED, userRecord.getUsername());
+            return true;
+        }
+
+        private long getNextMessageSequenceId() {
+            synchronized (messagesSequenceLock) {
+                return nextMessageSequenceId;
+            }
+        }
+
+        private boolean addNewUserToServerModel() {
+            UserMetaInfo userMetaInfo = UserMetaInfo.builder()
+                    .username(userRecord.getUsername())
+                    .build();
+            boolean isUserAdded = serverModel.addNewUserIfUsernameAvailable(userRecord.getUsername(), userRecord.getUserConnection(), userMetaInfo);
+            if (isUserAdded) {
+                presenceTracker.recordUserAdded(userRecord.getUsername());
+                userRecord.getUserConnection().setUserMetaInfo(userMetaInfo);
+                notifyObservers(Message.builder()
+                        .messageType(MessageType.NOTIFY_ADD)
+                        .messageText(userRecord.getUsername())
+                        .roomName(ServerModel.DEFAULT_ROOM_NAME)
+                        .build());
+            }
+            return isUserAdded;
         }
 
         private Message requestUsernameFromNewUser(UserConnection userConnection) throws IOException {
-            userConnection.send(new Message(MessageType.REQUEST_USERNAME));
-            return userConnection.receive();
+            userConnection.send(Message.builder()
+                    .messageType(MessageType.REQUEST_USERNAME)
+                    .codecType(isBinaryCodecOffered ? MessageCodecType.BINARY : null)
+                    .build());
+
+            Message responseForUsername = userConnection.receive();
+            if (isBinaryCodecOffered && responseForUsername.getCodecType() == MessageCodecType.BINARY) {
+                userConnection.setCodec(MessageCodecType.BINARY.getCodec());
+            }
+            userConnection.setPresenceDeltasEnabled(responseForUsername.isPresenceDeltasRequested());
+            return responseForUsername;
         }
 
         private Message requestCurrentSessionPasswordFromNewUser(UserConnection userConnection) throws IOException {
@@ -248,12 +854,14 @@ public class ServerController {
         }
 
         private boolean isUsernameAvailableToAdd(String username) {
-            return username != null && !username.trim().isEmpty() && !serverModel.getOnlineUsersConnections().containsKey(username);
+            return username != null && !username.trim().isEmpty() && !serverModel.isUsernameOnline(username);
         }
 
-        private void sendToNewUserAllOnlineUsernamesByConnection(UserConnection userConnection) {
-            Set<String> listUsers = new HashSet<>(serverModel.getOnlineUsersConnections().keySet());
-            userConnection.send(new Message(MessageType.LOGIN_ACCEPTED, listUsers));
+        private void replayRecentMessagesToNewUser(UserConnection userConnection) {
+            EncodedMessage replayMessage = replayBuffer.buildReplayMessage(userConnection.getCodec());
+            if (replayMessage.getBytes(userConnection.getCodec()).length > 0) {
+                userConnection.enqueue(replayMessage);
+            }
         }
 
         private void messagingBetweenUsers() {
@@ -262,54 +870,434 @@ public class ServerController {
                     return;
                 }
 
-                Message messageFromUser = userRecord.getUserConnection().receive();
+                handleMessageFromUser(userRecord.getUserConnection().receive());
+            } catch (Exception exception) {
+                handleConnectionFailure(exception);
+            }
+        }
+
+        private void receiveMessagesUntilDisconnect() {
+            try {
+                while (isUserOnline) {
+                    handleMessageFromUser(userRecord.getUserConnection().receive());
+                }
+            } catch (Exception exception) {
+                if (isUserOnline) {
+                    handleConnectionFailure(exception);
+                }
+            }
+        }
+
+        @Override
+        public void handleMessageFromUser(Message messageFromUser) throws IOException {
+            long receivedNanos = System.nanoTime();
+            inboundMessagesCounter.increment();
+            if ((MessageType.isTypeTextMessage(messageFromUser.getMessageType())
+                    || MessageType.isTypeDirectMessage(messageFromUser.getMessageType()))
+                    && !isMessageWithinRateLimits()) {
+                return;
+            }
+
+            if (MessageType.isTypeTextMessage(messageFromUser.getMessageType())) {
+                sendMessageFromUserToEveryone(messageFromUser, receivedNanos);
+            }
+
+            if (MessageType.isTypeTraceEcho(messageFromUser.getMessageType())
+                    && messageFromUser.getSequenceId() != null && messageFromUser.getTimestampEpochNanos() != null) {
+                messageTracer.recordEcho(messageFromUser.getSequenceId(), userRecord.getUserConnection(),
+                        messageFromUser.getTimestampEpochNanos());
+            }
+
+            if (MessageType.isTypePresenceResyncRequest(messageFromUser.getMessageType())) {
+                sendPresenceSnapshot(userRecord.getUserConnection());
+            }
+
+            if (MessageType.isTypeJoinRoom(messageFromUser.getMessageType())) {
+                joinUserToRoom(messageFromUser.getRoomName());
+            }
+
+            if (MessageType.isTypeLeaveRoom(messageFromUser.getMessageType())) {
+                removeUserFromRoom(messageFromUser.getRoomName());
+            }
+
+            if (MessageType.isTypeDirectMessage(messageFromUser.getMessageType())) {
+                sendDirectMessageFromUser(messageFromUser, receivedNanos);
+            }
+
+            if (MessageType.isTypeHistoryRequest(messageFromUser.getMessageType())) {
+                startHistoryRead(messageFromUser);
+            }
+
+            if (MessageType.isTypeDisconnect(messageFromUser.getMessageType())) {
+                disableExistedUserFromChat();
+            }
+        }
+
+        @Override
+        public void handleConnectionFailure(Exception exception) {
+            isUserOnline = false;
+            serverLogger.logServiceMessage(
+                    "An error occurred when sending a message from user " + userRecord.getUsername() + " with address " + userSocket.getRemoteSocketAddress());
+            cancelActiveUserTask();
+            removeUserFromServerModel();
+            closeUserConnectionQuietly();
+        }
+
+        private boolean isMessageWithinRateLimits() {
+            if (userMessagesTokenBucket != null && !userMessagesTokenBucket.tryAcquire()) {
+                throttledByUserLimitMessagesCounter.increment();
+                handleThrottledMessage();
+                return false;
+            }
+
+            TokenBucket currentServerMessagesTokenBucket = serverMessagesTokenBucket;
+            if (currentServerMessagesTokenBucket != null && !currentServerMessagesTokenBucket.tryAcquire()) {
+                throttledByServerLimitMessagesCounter.increment();
+                handleThrottledMessage();
+                return false;
+            }
+
+            isThrottledNoticeSent = false;
+            return true;
+        }
+
+        private void handleThrottledMessage() {
+            UserMetaInfo userMetaInfo = serverModel.getUserMetaInfoByUsername(userRecord.getUsername());
+            if (userMetaInfo != null) {
+                userMetaInfo.addThrottledMessage();
+            }
+
+            if (rateLimitSettings.isThrottledNoticeEnabled() && !isThrottledNoticeSent) {
+                isThrottledNoticeSent = true;
+                userRecord.getUserConnection().send(new Message(MessageType.THROTTLED,
+                        "You are sending messages too fast, some of them were not delivered"));
+            }
+        }
+
+        private void sendMessageFromUserToEveryone(Message message, long receivedNanos) {
+            String roomName = message.getRoomName();
+            if (roomName != null && !ServerModel.DEFAULT_ROOM_NAME.equals(roomName)) {
+                sendMessageFromUserToRoom(roomName, message, receivedNanos);
+                return;
+            }
+
+            if (message.hasMessageText() && !message.isMessageTextBlank()) {
+                relaySequencedMessage(Message.builder()
+                                .messageType(MessageType.TEXT_MESSAGE)
+                                .messageTextBytes(FormatMessagesBuilder.buildChatTextAreaUserMessage(
+                                        userRecord.getUsername(), message.getMessageTextBytes())),
+                        message, serverModel.getOnlineUsersConnectionsSnapshot(), receivedNanos, true);
+            }
+        }
+
+        private void sendMessageFromUserToRoom(String roomName, Message message, long receivedNanos) {
+            if (!message.hasMessageText() || message.isMessageTextBlank()
+                    || !serverModel.isUserInRoom(userRecord.getUsername(), roomName)) {
+                return;
+            }
+
+            relaySequencedMessage(Message.builder()
+                            .messageType(MessageType.TEXT_MESSAGE)
+                            .messageTextBytes(FormatMessagesBuilder.buildChatTextAreaRoomMessage(
+                                    userRecord.getUsername(), roomName, message.getMessageTextBytes()))
+                            .roomName(roomName),
+                    message, serverModel.getRoomMembersConnectionsSnapshot(roomName), receivedNanos, false);
+        }
+
+        private void relaySequencedMessage(Message.MessageBuilder messageBuilder, Message messageFromUser,
+                                           UserConnection[] recipientsConnections, long receivedNanos,
+                                           boolean isCommonChatMessage) {
+            EncodedMessage encodedMessage;
+            EncodedMessage persistedMessage;
+            long sequenceId;
+            long serverReceivedEpochNanos;
+            boolean isTraced;
+            synchronized (messagesSequenceLock) {
+                sequenceId = nextMessageSequenceId++;
+                serverReceivedEpochNanos = EpochNanosClock.now();
+                isTraced = messageTracer.shouldTraceMessage(sequenceId);
+                messageBuilder.sequenceId(sequenceId).timestampEpochNanos(serverReceivedEpochNanos);
+                persistedMessage = new EncodedMessage(messageBuilder.traceRequested(null).build());
+                encodedMessage = isTraced
+                        ? new EncodedMessage(messageBuilder.traceRequested(Boolean.TRUE).build())
+                        : persistedMessage;
+                if (isCommonChatMessage) {
+                    appendToChatHistory(persistedMessage);
+                }
+            }
+
+            if (isTraced) {
+                messageTracer.startTrace(sequenceId, userRecord.getUsername(), messageFromUser.getTimestampEpochNanos(),
+                        serverReceivedEpochNanos, recipientsConnections);
+            }
+            sendMessageToConnections(recipientsConnections, encodedMessage);
+            long relayNanos = System.nanoTime() - receivedNanos;
+            relayDurationHistogram.recordValue(relayNanos);
+            if (isTraced) {
+                messageTracer.recordRelay(sequenceId, relayNanos);
+            }
+            if (isCommonChatMessage) {
+                replayBuffer.append(persistedMessage);
+            }
+            UserMetaInfo userMetaInfo = serverModel.getUserMetaInfoByUsername(userRecord.getUsername());
+            if (userMetaInfo != null) {
+                userMetaInfo.updateLastMessageTime();
+            }
+        }
+
+        private void joinUserToRoom(String roomName) {
+            if (!isRoomNameValid(roomName)) {
+                rejectRoomRequest(null, "The room name must be from 1 to " + MAX_ROOM_NAME_LENGTH + " characters long");
+                return;
+            }
+
+            if (serverModel.isUserInRoom(userRecord.getUsername(), roomName)) {
+                userRecord.getUserConnection().send(buildRoomMembershipMessage(MessageType.JOIN_ROOM, roomName));
+                return;
+            }
+
+            if (!serverModel.joinRoom(userRecord.getUsername(), roomName)) {
+                rejectRoomRequest(roomName, "Couldn't join the room #" + roomName);
+                return;
+            }
+
+            sendRoomMessage(roomName, new EncodedMessage(buildRoomMembershipMessage(MessageType.JOIN_ROOM, roomName)));
+            notifyObservers(buildRoomMembershipMessage(MessageType.NOTIFY_ADD, roomName));
+        }
+
+        private void removeUserFromRoom(String roomName) {
+            if (!isRoomNameValid(roomName)) {
+                rejectRoomRequest(null, "The room name must be from 1 to " + MAX_ROOM_NAME_LENGTH + " characters long");
+                return;
+            }
+
+            if (!serverModel.leaveRoom(userRecord.getUsername(), roomName)) {
+                rejectRoomRequest(roomName, ServerModel.DEFAULT_ROOM_NAME.equals(roomName)
+                        ? "The room #" + roomName + " cannot be left"
+                        : "You are not a member of the room #" + roomName);
+                return;
+            }
+
+            EncodedMessage leaveMessage = new EncodedMessage(buildRoomMembershipMessage(MessageType.LEAVE_ROOM, roomName));
+            sendRoomMessage(roomName, leaveMessage);
+            userRecord.getUserConnection().send(leaveMessage);
+            notifyObservers(buildRoomMembershipMessage(MessageType.NOTIFY_REMOVE, roomName));
+        }
+
+        private void rejectRoomRequest(String roomName, String reason) {
+            userRecord.getUserConnection().send(Message.builder()
+                    .messageType(MessageType.ROOM_REQUEST_FAILED)
+                    .messageText(reason)
+                    .roomName(roomName)
+                    .build());
+        }
+
+        private boolean isRoomNameValid(String roomName) {
+            return roomName != null && !roomName.trim().isEmpty() && roomName.length() <= MAX_ROOM_NAME_LENGTH;
+        }
+
+        private Message buildRoomMembershipMessage(MessageType messageType, String roomName) {
+            return Message.builder()
+                    .messageType(messageType)
+                    .messageText(userRecord.getUsername())
+                    .roomName(roomName)
+                    .build();
+        }
+
+        private void sendDirectMessageFromUser(Message message, long receivedNanos) {
+            if (!message.hasMessageText() || message.isMessageTextBlank()) {
+                return;
+            }
+
+            String recipientUsername = message.getRecipientUsername();
+            UserConnection recipientConnection = recipientUsername == null ? null : serverModel.getUserConnectionByUsername(recipientUsername);
+            UserConnection senderConnection = userRecord.getUserConnection();
+            if (recipientConnection == null) {
+                senderConnection.send(Message.builder()
+                        .messageType(MessageType.DIRECT_MESSAGE_FAILED)
+                        .messageText("The user " + recipientUsername + " is not online, the message was not delivered")
+                        .recipientUsername(recipientUsername)
+                        .build());
+                return;
+            }
+
+            relaySequencedMessage(Message.builder()
+                            .messageType(MessageType.DIRECT_MESSAGE)
+                            .messageTextBytes(FormatMessagesBuilder.buildChatTextAreaDirectMessage(
+                                    userRecord.getUsername(), recipientUsername, message.getMessageTextBytes()))
+                            .recipientUsername(recipientUsername),
+                    message, recipientConnection == senderConnection
+                            ? new UserConnection[]{senderConnection}
+                            : new UserConnection[]{recipientConnection, senderConnection},
+                    receivedNanos, false);
+        }
+
+        private void appendToChatHistory(EncodedMessage encodedMessage) {
+            ChatHistoryWriter currentHistoryWriter = chatHistoryWriter;
+            if (currentHistoryWriter != null) {
+                currentHistoryWriter.offer(encodedMessage);
+            }
+        }
+
+        private void startHistoryRead(Message historyRequest) {
+            if (userHistoryRequestsTokenBucket != null && !userHistoryRequestsTokenBucket.tryAcquire()
+                    || !isHistoryReadInProgress.compareAndSet(false, true)) {
+                throttledHistoryRequestsCounter.increment();
+                userRecord.getUserConnection().send(new Message(MessageType.THROTTLED,
+                        "The chat history is requested too often, wait for the previous page and try again"));
+                return;
+            }
+
+            try {
+                historyReadersExecutor.execute(() -> {
+                    try {
+                        sendHistoryPageToUser(historyRequest);
+                    } finally {
+                        isHistoryReadInProgress.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException exception) {
+                isHistoryReadInProgress.set(false);
+            }
+        }
+
+        private void sendHistoryPageToUser(Message historyRequest) {
+            UserConnection userConnection = userRecord.getUserConnection();
+            ChatHistoryWriter currentHistoryWriter = chatHistoryWriter;
+            if (currentHistoryWriter == null) {
+                userConnection.send(buildHistoryPageEndMessage(FIRST_MESSAGE_SEQUENCE_ID, 0));
+                return;
+            }
+
+            HistoryLog historyLog = currentHistoryWriter.getHistoryLog();
+            long beforeSequenceId = findHistoryPageEndSequenceId(historyLog, historyRequest);
+            List<HistoryRecord> records = historyLog.readRecordsBefore(beforeSequenceId, getRequestedHistoryPageSize(historyRequest));
 
-                if (MessageType.isTypeTextMessage(messageFromUser.getMessageType())) {
-                    sendMessageFromUserToEveryone(messageFromUser);
+            try {
+                for (int i = 0; i < records.size() && isUserOnline; i++) {
+                    if (i > 0 && i % HISTORY_CHUNK_MESSAGES_NUMBER == 0
+                            && !waitUntilOutboundQueueDrainsChunk(userConnection)) {
+                        return;
+                    }
+
+                    HistoryRecord record = records.get(i);
+                    userConnection.send(Message.builder()
+                            .messageType(MessageType.HISTORY_RESPONSE)
+                            .messageTextBytes(record.toMessage().getMessageTextBytes())
+                            .sequenceId(record.sequenceId())
+                            .timestampEpochNanos(record.timestampEpochNanos())
+                            .build());
                 }
+            } catch (InterruptedException exception) {
+                return;
+            } catch (ProtocolException exception) {
+                serverLogger.logServiceMessage("Couldn't decode a chat history record: " + exception.getMessage());
+            }
+
+            if (isUserOnline) {
+                userConnection.send(buildHistoryPageEndMessage(
+                        records.isEmpty() ? beforeSequenceId : records.get(0).sequenceId(), records.size()));
+            }
+        }
+
+        private long findHistoryPageEndSequenceId(HistoryLog historyLog, Message historyRequest) {
+            if (historyRequest.getSequenceId() != null) {
+                return historyRequest.getSequenceId();
+            }
+            if (historyRequest.getTimestampEpochNanos() != null) {
+                return historyLog.findSequenceIdByTime(historyRequest.getTimestampEpochNanos());
+            }
+            return historyLog.getLastSequenceId() + 1;
+        }
 
-                if (MessageType.isTypeDisconnect(messageFromUser.getMessageType())) {
-                    disableExistedUserFromChat();
+        private int getRequestedHistoryPageSize(Message historyRequest) {
+            Integer historyPageSize = historyRequest.getHistoryPageSize();
+            return historyPageSize == null
+                    ? DEFAULT_HISTORY_PAGE_SIZE
+                    : Math.max(1, Math.min(historyPageSize, MAX_HISTORY_PAGE_SIZE));
+        }
+
+        private boolean waitUntilOutboundQueueDrainsChunk(UserConnection userConnection) throws InterruptedException {
+            while (isUserOnline) {
+                if (userConnection.awaitOutboundQueueSizeAtMost(
+                        HISTORY_CHUNK_MESSAGES_NUMBER, HISTORY_BACKPRESSURE_CHECK_MILLIS_TIME)) {
+                    return true;
                 }
-            } catch (Exception exception) {
-                graphicView.addServiceMessageToServerLogsTextArea(FormatMessagesBuilder.buildMessageWithDateNow(
-                        "An error occurred when sending a message from user " + userRecord.getUsername() + " with address " + userSocket.getRemoteSocketAddress()));
-                cancelScheduledActiveTask();
-                removeUserFromServerModel();
             }
+            return false;
+        }
+
+        private Message buildHistoryPageEndMessage(long firstSequenceId, int messagesNumber) {
+            return Message.builder()
+                    .messageType(MessageType.HISTORY_RESPONSE)
+                    .sequenceId(firstSequenceId)
+                    .historyPageSize(messagesNumber)
+                    .build();
         }
 
+        private void checkOutboundLag(SlowConsumerSettings settings) {
+            UserConnection userConnection = userRecord.getUserConnection();
+            long outboundLagMillis = TimeUnit.NANOSECONDS.toMillis(userConnection.getOutboundLagNanos());
+            int queuedFramesNumber = userConnection.getOutboundQueueSize();
+            boolean isLagging = outboundLagMillis >= settings.getLaggingThresholdMillis();
+
+            if (settings.isEvictionEnabled() && (outboundLagMillis >= settings.getMaxOutboundLagMillis()
+                    || isLagging && queuedFramesNumber >= settings.getMaxQueuedFramesNumber())) {
+                evictSlowConsumer(outboundLagMillis, queuedFramesNumber);
+                return;
+            }
 
-        private void sendMessageFromUserToEveryone(Message message) {
-            if (message.getMessageText() != null && !message.getMessageText().trim().isEmpty()) {
-                String textMessage = FormatMessagesBuilder.buildChatTextAreaUserMessage(userRecord.getUsername(), message.getMessageText());
-                sendBroadcastMessage(new Message(MessageType.TEXT_MESSAGE, textMessage));
-                serverModel.getUserMetaInfoByUsername(userRecord.getUsername()).updateLastMessageTime();
+            if (isLagging && laggingUsernames.add(userRecord.getUsername())) {
+                notifyObservers(new Message(MessageType.NOTIFY_LAGGING, userRecord.getUsername()));
+            } else if (!isLagging && laggingUsernames.remove(userRecord.getUsername())) {
+                notifyObservers(new Message(MessageType.NOTIFY_RECOVERED, userRecord.getUsername()));
+            }
+        }
+
+        private void evictSlowConsumer(long outboundLagMillis, int queuedFramesNumber) {
+            evictedSlowConsumersCounter.increment();
+            serverLogger.logServiceMessage(
+                    "The user " + userRecord.getUsername() + " is evicted as a slow consumer: outbound lag "
+                            + outboundLagMillis + " ms, queued frames " + queuedFramesNumber);
+            try {
+                disableExistedUserFromChat();
+            } catch (IOException exception) {
+                serverLogger.logServiceMessage("An error occurred when evicting the user " + userRecord.getUsername());
             }
         }
 
         private void disableExistedUserFromChat() throws IOException {
-            sendBroadcastMessage(new Message(MessageType.USER_DELETED, userRecord.getUsername()));
+            isUserOnline = false;
             removeUserFromServerModel();
             userRecord.getUserConnection().close();
-            cancelScheduledActiveTask();
-            graphicView.addServiceMessageToServerLogsTextArea(FormatMessagesBuilder.buildMessageWithDateNow(
-                    "The user with remote address " + userSocket.getRemoteSocketAddress() + " has disconnected"));
+            cancelActiveUserTask();
+            serverLogger.logServiceMessage(
+                    "The user with remote address " + userSocket.getRemoteSocketAddress() + " has disconnected");
         }
 
         private void removeUserFromServerModel() {
-            if (userRecord != null) {
-                serverModel.removeUserConnectionByUsername(userRecord.getUsername());
-                serverModel.removeUserMetaInfoByUsername(userRecord.getUsername());
+            if (userRecord != null && isUserRegistered
+                    && serverModel.removeUserByUsername(userRecord.getUsername(), userRecord.getUserConnection())) {
+                registeredUserHandlers.remove(userRecord.getUsername(), this);
+                laggingUsernames.remove(userRecord.getUsername());
+                presenceTracker.recordUserRemoved(userRecord.getUsername());
+                sendLegacyPresenceChange(MessageType.USER_DELETED, userRecord.getUsername());
                 notifyObservers(new Message(MessageType.NOTIFY_REMOVE, userRecord.getUsername()));
             }
         }
 
-        private void cancelScheduledActiveTask() {
-            if (scheduledActiveTasks.containsKey(userSocket)) {
-                scheduledActiveTasks.get(userSocket).cancel(true);
+        private void closeUserConnectionQuietly() {
+            try {
+                userRecord.getUserConnection().close();
+            } catch (IOException ignored) {
+            }
+        }
+
+        private void cancelActiveUserTask() {
+            if (activeUserTasks.containsKey(userSocket)) {
+                activeUserTasks.get(userSocket).cancel(true);
             }
-            scheduledActiveTasks.remove(userSocket);
+            activeUserTasks.remove(userSocket);
         }
 
         @Override
@@ -317,8 +1305,7 @@ public class ServerController {
             try {
                 messagingBetweenUsers();
             } catch (Exception exception) {
-                graphicView.addServiceMessageToServerLogsTextArea(FormatMessagesBuilder.buildMessageWithDateNow(
-                        "An error occurred when sending a message from a user"));
+                serverLogger.logServiceMessage("An error occurred when sending a message from a user");
             }
         }
     }
@@ -331,8 +1318,7 @@ public class ServerController {
                     Thread.sleep(PASSWORD_EXPIRATION_MILLIS_TIME);
                     generateNewSessionPassword();
                 } catch (InterruptedException exception) {
-                    graphicView.addServiceMessageToServerLogsTextArea(FormatMessagesBuilder.buildMessageWithDateNow(
-                            "SessionPasswordUpdater was stopped by interrupt"));
+                    serverLogger.logServiceMessage("SessionPasswordUpdater was stopped by interrupt");
                     break;
                 }
             }
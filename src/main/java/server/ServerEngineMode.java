@@ -0,0 +1,7 @@
+package server;
+
+public enum ServerEngineMode {
+    POLLING,
+    SELECTOR,
+    VIRTUAL_THREADS
+}
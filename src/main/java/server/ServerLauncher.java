@@ -6,7 +6,7 @@ public class ServerLauncher {
         ServerSwingView graphicView = new ServerSwingView(serverController);
 
         serverController.addObserver(graphicView);
-        serverController.setGraphicView(graphicView);
+        serverController.setServerLogger(graphicView);
         serverController.setServerModel(new ServerModel());
 
         serverController.launch();
@@ -0,0 +1,6 @@
+package server;
+
+@FunctionalInterface
+public interface ServerLogger {
+    void logServiceMessage(String serviceMessage);
+}
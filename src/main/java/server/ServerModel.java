@@ -4,41 +4,150 @@ import connection.Password;
 import connection.UserConnection;
 import connection.UserMetaInfo;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class ServerModel {
-    private final Map<String, UserConnection> onlineUsersConnections = new HashMap<>();
-    private final Map<String, UserMetaInfo> onlineUsersMetaInfos = new HashMap<>();
+    public static final String DEFAULT_ROOM_NAME = "general";
+
+    private final ConcurrentMap<String, UserConnection> onlineUsersConnections = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, UserMetaInfo> onlineUsersMetaInfos = new ConcurrentHashMap<>();
+
+    private final Object membershipLock = new Object();
+    private final ChatRoom defaultChatRoom = new ChatRoom(DEFAULT_ROOM_NAME);
+    private final ConcurrentMap<String, ChatRoom> chatRooms = new ConcurrentHashMap<>(Map.of(DEFAULT_ROOM_NAME, defaultChatRoom));
+    private final ConcurrentMap<String, Set<String>> usersRoomsNames = new ConcurrentHashMap<>();
 
     private final Password currentSessionPassword = new Password();
 
-    public synchronized Map<String, UserConnection> getOnlineUsersConnections() {
-        return onlineUsersConnections;
+    public Map<String, UserConnection> getOnlineUsersConnections() {
+        return Collections.unmodifiableMap(onlineUsersConnections);
     }
 
     public Map<String, UserMetaInfo> getOnlineUsersMetaInfos() {
-        return onlineUsersMetaInfos;
+        return Collections.unmodifiableMap(onlineUsersMetaInfos);
     }
 
-    public synchronized void addNewUserConnection(String username, UserConnection userConnection) {
-        onlineUsersConnections.put(username, userConnection);
+    public UserConnection[] getOnlineUsersConnectionsSnapshot() {
+        return defaultChatRoom.getMembersConnectionsSnapshot();
     }
 
-    public synchronized void removeUserConnectionByUsername(String username) {
-        onlineUsersConnections.remove(username);
+    public UserConnection[] getRoomMembersConnectionsSnapshot(String roomName) {
+        ChatRoom chatRoom = chatRooms.get(roomName);
+        return chatRoom == null ? new UserConnection[0] : chatRoom.getMembersConnectionsSnapshot();
     }
 
-    public synchronized void addNewUserMetaInfo(String username, UserMetaInfo metaInfo) {
-        onlineUsersMetaInfos.put(username, metaInfo);
+    public Set<String> getRoomNames() {
+        return new TreeSet<>(chatRooms.keySet());
+    }
+
+    public Set<String> getRoomsNamesByUsername(String username) {
+        Set<String> roomsNames = usersRoomsNames.get(username);
+        return roomsNames == null ? Set.of() : new TreeSet<>(roomsNames);
+    }
+
+    public ChatRoom getChatRoomByName(String roomName) {
+        return chatRooms.get(roomName);
+    }
+
+    public boolean isUserInRoom(String username, String roomName) {
+        ChatRoom chatRoom = chatRooms.get(roomName);
+        return chatRoom != null && chatRoom.isMember(username);
+    }
+
+    public boolean joinRoom(String username, String roomName) {
+        synchronized (membershipLock) {
+            UserConnection userConnection = onlineUsersConnections.get(username);
+            if (userConnection == null) {
+                return false;
+            }
+
+            ChatRoom chatRoom = chatRooms.computeIfAbsent(roomName, ChatRoom::new);
+            if (!chatRoom.addMember(username, userConnection)) {
+                return false;
+            }
+            usersRoomsNames.get(username).add(roomName);
+            return true;
+        }
+    }
+
+    public boolean leaveRoom(String username, String roomName) {
+        if (DEFAULT_ROOM_NAME.equals(roomName)) {
+            return false;
+        }
+
+        synchronized (membershipLock) {
+            ChatRoom chatRoom = chatRooms.get(roomName);
+            if (chatRoom == null || !chatRoom.removeMember(username)) {
+                return false;
+            }
+            usersRoomsNames.get(username).remove(roomName);
+            removeChatRoomIfEmpty(chatRoom);
+            return true;
+        }
+    }
+
+    public Set<String> getOnlineUsernames() {
+        return new HashSet<>(onlineUsersConnections.keySet());
+    }
+
+    public boolean isUsernameOnline(String username) {
+        return onlineUsersConnections.containsKey(username);
+    }
+
+    public boolean addNewUserIfUsernameAvailable(String username, UserConnection userConnection, UserMetaInfo metaInfo) {
+        synchronized (membershipLock) {
+            if (onlineUsersConnections.putIfAbsent(username, userConnection) != null) {
+                return false;
+            }
+            onlineUsersMetaInfos.put(username, metaInfo);
+            defaultChatRoom.addMember(username, userConnection);
+            Set<String> roomsNames = ConcurrentHashMap.newKeySet();
+            roomsNames.add(DEFAULT_ROOM_NAME);
+            usersRoomsNames.put(username, roomsNames);
+            return true;
+        }
+    }
+
+    public boolean removeUserByUsername(String username, UserConnection userConnection) {
+        synchronized (membershipLock) {
+            if (!onlineUsersConnections.remove(username, userConnection)) {
+                return false;
+            }
+            onlineUsersMetaInfos.remove(username);
+            for (String roomName : usersRoomsNames.remove(username)) {
+                ChatRoom chatRoom = chatRooms.get(roomName);
+                chatRoom.removeMember(username);
+                removeChatRoomIfEmpty(chatRoom);
+            }
+            return true;
+        }
+    }
+
+    public Map<String, UserConnection> removeAllUsers() {
+        synchronized (membershipLock) {
+            Map<String, UserConnection> removedUsersConnections = new HashMap<>(onlineUsersConnections);
+            onlineUsersConnections.clear();
+            onlineUsersMetaInfos.clear();
+            usersRoomsNames.clear();
+            chatRooms.keySet().retainAll(Set.of(DEFAULT_ROOM_NAME));
+            defaultChatRoom.removeAllMembers();
+            return removedUsersConnections;
+        }
+    }
+
+    private void removeChatRoomIfEmpty(ChatRoom chatRoom) {
+        if (chatRoom != defaultChatRoom && chatRoom.isEmpty()) {
+            chatRooms.remove(chatRoom.getName(), chatRoom);
+        }
     }
 
-    public synchronized void removeUserMetaInfoByUsername(String username) {
-        onlineUsersMetaInfos.remove(username);
+    public UserConnection getUserConnectionByUsername(String username) {
+        return onlineUsersConnections.get(username);
     }
 
-    public synchronized UserMetaInfo getUserMetaInfoByUsername(String username) {
+    public UserMetaInfo getUserMetaInfoByUsername(String username) {
         return onlineUsersMetaInfos.get(username);
     }
 
@@ -3,15 +3,24 @@ package server;
 import connection.Message;
 import connection.MessageType;
 import connection.ServerObserver;
+import utilities.FormatMessagesBuilder;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.net.ConnectException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 
-public class ServerSwingView implements ServerObserver {
+public class ServerSwingView implements ServerObserver, ServerLogger {
+    private static final String ROOM_ENTRY_SEPARATOR = " #";
+    private static final String LAGGING_ENTRY_SUFFIX = " (lagging)";
+
     private final JFrame serverMainFrame = new JFrame("Multi-user chat server");
 
     private final JTextArea serverLogsTextArea = new JTextArea(20, 80) {{
@@ -26,6 +35,8 @@ public class ServerSwingView implements ServerObserver {
 
     private final JButton showPasswordButton = new JButton("Show current password");
 
+    private final JButton showServerStatisticsButton = new JButton("Show server statistics");
+
     private final JPanel buttonsPanel = new JPanel();
 
     private final DefaultListModel<String> usernamesListModel = new DefaultListModel<>() {{
@@ -34,6 +45,10 @@ public class ServerSwingView implements ServerObserver {
 
     private final JList<String> connectedUsernamesList = new JList<>(usernamesListModel);
 
+    private final Map<String, Set<String>> usersRoomsNames = new HashMap<>();
+
+    private final Set<String> laggingUsernames = ConcurrentHashMap.newKeySet();
+
     private final JMenuBar menuBar = new JMenuBar();
 
     private final ServerController serverController;
@@ -54,6 +69,7 @@ public class ServerSwingView implements ServerObserver {
         addButtonClickListenerToStopServer();
         addButtonClickListenerToGenerateSessionPassword();
         addButtonClickListenerToShowPassword();
+        addButtonClickListenerToShowServerStatistics();
     }
 
     private void configureInitServerLogsTextArea() {
@@ -68,6 +84,7 @@ public class ServerSwingView implements ServerObserver {
         buttonsPanel.add(serverStopButton);
         buttonsPanel.add(updateSessionPasswordButton);
         buttonsPanel.add(showPasswordButton);
+        buttonsPanel.add(showServerStatisticsButton);
     }
 
     private void configureInitMenuBar() {
@@ -76,8 +93,21 @@ public class ServerSwingView implements ServerObserver {
 
     private void configureUsernamesList() {
         connectedUsernamesList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        connectedUsernamesList.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+                String listEntry = (String) value;
+                boolean isLagging = laggingUsernames.contains(extractUsernameFromListEntry(listEntry));
+                Component cellComponent = super.getListCellRendererComponent(
+                        list, isLagging ? listEntry + LAGGING_ENTRY_SUFFIX : listEntry, index, isSelected, cellHasFocus);
+                if (isLagging && !isSelected) {
+                    cellComponent.setForeground(Color.RED);
+                }
+                return cellComponent;
+            }
+        });
         connectedUsernamesList.addListSelectionListener(e -> {
-            String selectedUsername = connectedUsernamesList.getSelectedValue();
+            String selectedUsername = extractUsernameFromListEntry(connectedUsernamesList.getSelectedValue());
             if (serverController.getServerModel().getUserMetaInfoByUsername(selectedUsername) != null) {
                 JOptionPane.showMessageDialog(
                         serverMainFrame,
@@ -165,7 +195,9 @@ public class ServerSwingView implements ServerObserver {
                     return;
                 }
                 int serverPort = requestServerPortByShowingInputDialog();
+                ServerEngineMode engineMode = requestServerEngineModeByShowingInputDialog();
                 synchronized (serverController) {
+                    serverController.setEngineMode(engineMode);
                     serverController.setHasServerStarted(true);
                     serverController.startServerOnPort(serverPort);
                     serverController.notify();
@@ -203,10 +235,23 @@ public class ServerSwingView implements ServerObserver {
         });
     }
 
+    private void addButtonClickListenerToShowServerStatistics() {
+        showServerStatisticsButton.addActionListener(e -> JOptionPane.showMessageDialog(
+                serverMainFrame,
+                serverController.getServerStatistics(),
+                "Server statistics",
+                JOptionPane.INFORMATION_MESSAGE));
+    }
+
     private void showInitScreen() {
         serverMainFrame.setVisible(true);
     }
 
+    @Override
+    public void logServiceMessage(String serviceMessage) {
+        addServiceMessageToServerLogsTextArea(FormatMessagesBuilder.buildMessageWithDateNow(serviceMessage));
+    }
+
     public void addServiceMessageToServerLogsTextArea(String serviceMessage) {
         synchronized (serverLogsTextArea) {
             serverLogsTextArea.append(serviceMessage);
@@ -236,14 +281,74 @@ public class ServerSwingView implements ServerObserver {
         }
     }
 
+    private ServerEngineMode requestServerEngineModeByShowingInputDialog() {
+        Object engineMode = JOptionPane.showInputDialog(
+                serverMainFrame,
+                "Choose the server engine mode:",
+                "Choosing the engine mode",
+                JOptionPane.QUESTION_MESSAGE,
+                null,
+                ServerEngineMode.values(),
+                serverController.getEngineMode());
+
+        if (engineMode == null) {
+            throw new NullPointerException("Empty dialog");
+        }
+        return (ServerEngineMode) engineMode;
+    }
+
+    private String extractUsernameFromListEntry(String listEntry) {
+        if (listEntry == null) {
+            return null;
+        }
+        int separatorIndex = listEntry.lastIndexOf(ROOM_ENTRY_SEPARATOR);
+        return separatorIndex < 0 ? listEntry : listEntry.substring(0, separatorIndex);
+    }
+
+    private String buildListEntry(String username, String roomName) {
+        return roomName == null || ServerModel.DEFAULT_ROOM_NAME.equals(roomName)
+                ? username
+                : username + ROOM_ENTRY_SEPARATOR + roomName;
+    }
+
     @Override
-    public void update(Message message) {
+    public synchronized void update(Message message) {
+        String username = message.getMessageText();
+        String roomName = message.getRoomName();
+
         if (MessageType.isTypeNotifyToAdd(message.getMessageType())) {
-            usernamesListModel.addElement(message.getMessageText());
+            usersRoomsNames.computeIfAbsent(username, key -> new HashSet<>()).add(roomName);
+            usernamesListModel.addElement(buildListEntry(username, roomName));
+        }
+
+        if (MessageType.isTypeNotifyLagging(message.getMessageType())) {
+            laggingUsernames.add(username);
+            connectedUsernamesList.repaint();
+        }
+
+        if (MessageType.isTypeNotifyRecovered(message.getMessageType())) {
+            laggingUsernames.remove(username);
+            connectedUsernamesList.repaint();
         }
 
         if (MessageType.isTypeNotifyToRemove(message.getMessageType())) {
-            usernamesListModel.removeElement(message.getMessageText());
+            Set<String> roomsNames = usersRoomsNames.get(username);
+            if (roomName != null) {
+                usernamesListModel.removeElement(buildListEntry(username, roomName));
+                if (roomsNames != null) {
+                    roomsNames.remove(roomName);
+                }
+                return;
+            }
+
+            usernamesListModel.removeElement(username);
+            if (roomsNames != null) {
+                for (String userRoomName : roomsNames) {
+                    usernamesListModel.removeElement(buildListEntry(username, userRoomName));
+                }
+            }
+            usersRoomsNames.remove(username);
+            laggingUsernames.remove(username);
         }
     }
 }
\ No newline at end of file
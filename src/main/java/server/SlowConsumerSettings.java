@@ -0,0 +1,23 @@
+package server;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Builder
+@Getter
+public class SlowConsumerSettings {
+    @Builder.Default
+    private final long checkIntervalMillis = 500;
+
+    @Builder.Default
+    private final long laggingThresholdMillis = 1000;
+
+    @Builder.Default
+    private final long maxOutboundLagMillis = 10000;
+
+    @Builder.Default
+    private final int maxQueuedFramesNumber = 1000;
+
+    @Builder.Default
+    private final boolean evictionEnabled = true;
+}
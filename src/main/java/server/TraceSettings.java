@@ -0,0 +1,17 @@
+package server;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Builder
+@Getter
+public class TraceSettings {
+    @Builder.Default
+    private final int sampleIntervalMessagesNumber = 100;
+
+    @Builder.Default
+    private final long traceWindowMillis = 5000;
+
+    @Builder.Default
+    private final int maxActiveTracesNumber = 1000;
+}
@@ -0,0 +1,9 @@
+package server;
+
+import connection.Message;
+
+public interface UserMessagesHandler {
+    void handleMessageFromUser(Message message) throws Exception;
+
+    void handleConnectionFailure(Exception exception);
+}
@@ -0,0 +1,12 @@
+package utilities;
+
+import java.time.Instant;
+
+public class EpochNanosClock {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    public static long now() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * NANOS_PER_SECOND + now.getNano();
+    }
+}
@@ -1,22 +1,63 @@
 package utilities;
 
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 
 public class FormatMessagesBuilder {
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss z")
+            .withZone(ZoneId.systemDefault());
+
+    private static volatile FormattedSecond lastFormattedSecond = new FormattedSecond(Long.MIN_VALUE, "");
+
     public static String buildMessageWithDateNow(String message) {
-        return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss z").format(Calendar.getInstance().getTime()) + " | " + message + "\n";
+        return buildDateNow() + " | " + message + "\n";
     }
 
     public static String buildDateNow() {
-        return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss z").format(Calendar.getInstance().getTime());
+        long epochSecond = Math.floorDiv(System.currentTimeMillis(), 1000);
+        FormattedSecond formattedSecond = lastFormattedSecond;
+        if (formattedSecond.epochSecond() != epochSecond) {
+            formattedSecond = new FormattedSecond(epochSecond, DATE_FORMATTER.format(Instant.ofEpochSecond(epochSecond)));
+            lastFormattedSecond = formattedSecond;
+        }
+        return formattedSecond.formattedDate();
+    }
+
+    public static String buildDateFromEpochNanos(long epochNanos) {
+        return DATE_FORMATTER.format(Instant.ofEpochSecond(0, epochNanos));
     }
 
     public static String buildChatTextAreaUserMessage(String username, String text) {
         return "[CLIENT] " + username + "\n" + text + "\n";
     }
 
+    public static byte[] buildChatTextAreaUserMessage(String username, byte[] text) {
+        return buildChatTextAreaMessage("[CLIENT] " + username + "\n", text);
+    }
+
+    public static byte[] buildChatTextAreaRoomMessage(String username, String roomName, byte[] text) {
+        return buildChatTextAreaMessage("[CLIENT] " + username + " #" + roomName + "\n", text);
+    }
+
+    public static byte[] buildChatTextAreaDirectMessage(String senderUsername, String recipientUsername, byte[] text) {
+        return buildChatTextAreaMessage("[DIRECT] " + senderUsername + " -> " + recipientUsername + "\n", text);
+    }
+
+    private static byte[] buildChatTextAreaMessage(String header, byte[] text) {
+        byte[] prefix = header.getBytes(StandardCharsets.UTF_8);
+        byte[] textMessage = new byte[prefix.length + text.length + 1];
+        System.arraycopy(prefix, 0, textMessage, 0, prefix.length);
+        System.arraycopy(text, 0, textMessage, prefix.length, text.length);
+        textMessage[textMessage.length - 1] = '\n';
+        return textMessage;
+    }
+
     public static String buildChatTextAreaServiceMessage(String text) {
         return "[SERVER] SERVICE MESSAGE\n" + text + "\n";
     }
+
+    private record FormattedSecond(long epochSecond, String formattedDate) {
+    }
 }
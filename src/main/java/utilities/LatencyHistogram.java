@@ -0,0 +1,116 @@
+package utilities;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LatencyHistogram {
+    private static final int DEFAULT_SUB_BUCKET_BITS = 7;
+    private static final double[] REPORTED_PERCENTILES = {50.0, 90.0, 99.0, 99.9, 99.99};
+
+    private final int subBucketBits;
+    private final int subBucketsNumber;
+    private final int halfSubBucketsNumber;
+    private final AtomicLongArray counts;
+
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalValue = new LongAdder();
+    private final AtomicLong minValue = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong maxValue = new AtomicLong();
+
+    public LatencyHistogram() {
+        this(DEFAULT_SUB_BUCKET_BITS);
+    }
+
+    public LatencyHistogram(int subBucketBits) {
+        this.subBucketBits = subBucketBits;
+        this.subBucketsNumber = 1 << subBucketBits;
+        this.halfSubBucketsNumber = subBucketsNumber >> 1;
+        this.counts = new AtomicLongArray(subBucketsNumber + (Long.SIZE - subBucketBits) * halfSubBucketsNumber);
+    }
+
+    public void recordValue(long value) {
+        long recordedValue = Math.max(0, value);
+        counts.incrementAndGet(findIndexByValue(recordedValue));
+        totalCount.increment();
+        totalValue.add(recordedValue);
+        minValue.accumulateAndGet(recordedValue, Math::min);
+        maxValue.accumulateAndGet(recordedValue, Math::max);
+    }
+
+    public long getTotalCount() {
+        return totalCount.sum();
+    }
+
+    public long getMinValue() {
+        return getTotalCount() == 0 ? 0 : minValue.get();
+    }
+
+    public long getMaxValue() {
+        return maxValue.get();
+    }
+
+    public long getTotalValue() {
+        return totalValue.sum();
+    }
+
+    public double getMeanValue() {
+        long count = getTotalCount();
+        return count == 0 ? 0.0 : (double) totalValue.sum() / count;
+    }
+
+    public long getValueAtPercentile(double percentile) {
+        long count = getTotalCount();
+        if (count == 0) {
+            return 0;
+        }
+
+        long targetCount = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * count));
+        long accumulatedCount = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            accumulatedCount += counts.get(i);
+            if (accumulatedCount >= targetCount) {
+                return Math.min(findHighestEquivalentValueByIndex(i), getMaxValue());
+            }
+        }
+        return getMaxValue();
+    }
+
+    public String buildPercentilesReport(TimeUnit valueUnit, TimeUnit reportUnit) {
+        double unitRatio = (double) valueUnit.toNanos(1) / reportUnit.toNanos(1);
+        String unitName = reportUnit.toString().toLowerCase();
+        StringBuilder report = new StringBuilder()
+                .append("count=").append(getTotalCount())
+                .append(String.format(" min=%.3f", getMinValue() * unitRatio))
+                .append(String.format(" mean=%.3f", getMeanValue() * unitRatio));
+        for (double percentile : REPORTED_PERCENTILES) {
+            report.append(String.format(" p%s=%.3f", formatPercentile(percentile), getValueAtPercentile(percentile) * unitRatio));
+        }
+        return report.append(String.format(" max=%.3f", getMaxValue() * unitRatio))
+                .append(" (").append(unitName).append(")")
+                .toString();
+    }
+
+    private int findIndexByValue(long value) {
+        if (value < subBucketsNumber) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - Long.numberOfLeadingZeros(value) - subBucketBits;
+        long mantissa = value >>> exponent;
+        return subBucketsNumber + (exponent - 1) * halfSubBucketsNumber + (int) (mantissa - halfSubBucketsNumber);
+    }
+
+    private long findHighestEquivalentValueByIndex(int index) {
+        if (index < subBucketsNumber) {
+            return index;
+        }
+        int exponent = (index - subBucketsNumber) / halfSubBucketsNumber + 1;
+        long mantissa = (index - subBucketsNumber) % halfSubBucketsNumber + halfSubBucketsNumber;
+        return ((mantissa + 1) << exponent) - 1;
+    }
+
+    private static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+    }
+}
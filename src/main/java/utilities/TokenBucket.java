@@ -0,0 +1,35 @@
+package utilities;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TokenBucket {
+    private final long tokenIntervalNanos;
+    private final long burstToleranceNanos;
+
+    private final AtomicLong nextFreeTokenNanos = new AtomicLong(Long.MIN_VALUE);
+
+    public TokenBucket(double tokensPerSecond, int burstTokensNumber) {
+        this.tokenIntervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / tokensPerSecond));
+        this.burstToleranceNanos = tokenIntervalNanos * Math.max(0, burstTokensNumber - 1);
+    }
+
+    public boolean tryAcquire() {
+        return tryAcquire(System.nanoTime());
+    }
+
+    public boolean tryAcquire(long nowNanos) {
+        while (true) {
+            long currentNextFreeTokenNanos = nextFreeTokenNanos.get();
+            long tokenTakenNanos = currentNextFreeTokenNanos == Long.MIN_VALUE
+                    ? nowNanos
+                    : Math.max(currentNextFreeTokenNanos, nowNanos);
+            if (tokenTakenNanos - nowNanos > burstToleranceNanos) {
+                return false;
+            }
+            if (nextFreeTokenNanos.compareAndSet(currentNextFreeTokenNanos, tokenTakenNanos + tokenIntervalNanos)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package client;
+
+import connection.Message;
+import org.junit.jupiter.api.Test;
+import server.PresenceTracker;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientModelTest {
+    private final PresenceTracker presenceTracker = new PresenceTracker();
+    private final ClientModel clientModel = new ClientModel();
+
+    @Test
+    void appliesContinuousDeltasAfterTheSnapshot() {
+        presenceTracker.recordUserAdded("alice");
+        presenceTracker.buildPendingDeltaMessage();
+        applySnapshot();
+
+        presenceTracker.recordUserAdded("bob");
+        Message delta = presenceTracker.buildPendingDeltaMessage();
+
+        assertTrue(clientModel.isPresenceSynchronized());
+        assertFalse(clientModel.isPresenceDeltaStale(delta.getPresenceVersion()));
+        assertTrue(clientModel.isPresenceDeltaContinuous(delta.getPreviousPresenceVersion()));
+        clientModel.applyPresenceDelta(delta.getPresenceVersion(), delta.getConnectedUsernames(), delta.getRemovedUsernames());
+        assertEquals(Set.of("alice", "bob"), clientModel.getConnectedUsernames());
+    }
+
+    @Test
+    void detectsStaleDeltaAlreadyCoveredBySnapshot() {
+        presenceTracker.recordUserAdded("alice");
+        Message delta = presenceTracker.buildPendingDeltaMessage();
+        applySnapshot();
+
+        assertTrue(clientModel.isPresenceDeltaStale(delta.getPresenceVersion()));
+    }
+
+    @Test
+    void resynchronizesFromSnapshotAfterALostDelta() {
+        applySnapshot();
+        presenceTracker.recordUserAdded("alice");
+        presenceTracker.buildPendingDeltaMessage();
+        presenceTracker.recordUserAdded("bob");
+        Message deltaAfterLostOne = presenceTracker.buildPendingDeltaMessage();
+
+        assertFalse(clientModel.isPresenceDeltaContinuous(deltaAfterLostOne.getPreviousPresenceVersion()));
+        clientModel.invalidatePresence();
+        assertFalse(clientModel.isPresenceSynchronized());
+
+        applySnapshot();
+        assertTrue(clientModel.isPresenceSynchronized());
+        assertEquals(Set.of("alice", "bob"), clientModel.getConnectedUsernames());
+        assertTrue(clientModel.isPresenceDeltaStale(deltaAfterLostOne.getPresenceVersion()));
+    }
+
+    private void applySnapshot() {
+        for (Message snapshotPage : presenceTracker.buildSnapshotMessages(1)) {
+            clientModel.addPresenceSnapshotPage(snapshotPage.getConnectedUsernames());
+            if (snapshotPage.getPresenceVersion() != null) {
+                clientModel.completePresenceSnapshot(snapshotPage.getPresenceVersion());
+            }
+        }
+    }
+}
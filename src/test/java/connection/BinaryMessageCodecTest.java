@@ -0,0 +1,183 @@
+package connection;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryMessageCodecTest {
+    private final BinaryMessageCodec codec = new BinaryMessageCodec();
+
+    @Test
+    void decodesEveryEncodedField() throws Exception {
+        Message message = Message.builder()
+                .messageType(MessageType.PRESENCE_DELTA)
+                .messageText("hello, мир")
+                .connectedUsernames(Set.of("alice", "bob"))
+                .codecType(MessageCodecType.BINARY)
+                .sequenceId(42L)
+                .timestampEpochNanos(1_700_000_000_123_456_789L)
+                .historyPageSize(300)
+                .recipientUsername("carol")
+                .roomName("dev")
+                .removedUsernames(Set.of("dave"))
+                .presenceVersion(7L)
+                .previousPresenceVersion(6L)
+                .traceRequested(true)
+                .presenceDeltasRequested(true)
+                .build();
+
+        byte[] frame = codec.encode(message);
+        Message decodedMessage = codec.decode(ByteBuffer.wrap(frame), 0, frame.length);
+
+        assertEquals(MessageType.PRESENCE_DELTA, decodedMessage.getMessageType());
+        assertEquals("hello, мир", decodedMessage.getMessageText());
+        assertEquals(Set.of("alice", "bob"), decodedMessage.getConnectedUsernames());
+        assertEquals(MessageCodecType.BINARY, decodedMessage.getCodecType());
+        assertEquals(42L, decodedMessage.getSequenceId());
+        assertEquals(1_700_000_000_123_456_789L, decodedMessage.getTimestampEpochNanos());
+        assertEquals(300, decodedMessage.getHistoryPageSize());
+        assertEquals("carol", decodedMessage.getRecipientUsername());
+        assertEquals("dev", decodedMessage.getRoomName());
+        assertEquals(Set.of("dave"), decodedMessage.getRemovedUsernames());
+        assertEquals(7L, decodedMessage.getPresenceVersion());
+        assertEquals(6L, decodedMessage.getPreviousPresenceVersion());
+        assertTrue(decodedMessage.isTraceRequested());
+        assertTrue(decodedMessage.isPresenceDeltasRequested());
+    }
+
+    @Test
+    void leavesAbsentFieldsUnset() throws Exception {
+        byte[] frame = codec.encode(new Message(MessageType.DISCONNECT));
+        Message decodedMessage = codec.decode(ByteBuffer.wrap(frame), 0, frame.length);
+
+        assertEquals(MessageType.DISCONNECT, decodedMessage.getMessageType());
+        assertFalse(decodedMessage.hasMessageText());
+        assertNull(decodedMessage.getConnectedUsernames());
+        assertNull(decodedMessage.getSequenceId());
+        assertNull(decodedMessage.getRoomName());
+        assertFalse(decodedMessage.isTraceRequested());
+        assertFalse(decodedMessage.isPresenceDeltasRequested());
+    }
+
+    @Test
+    void findsConsecutiveFramesInOneBuffer() throws Exception {
+        byte[] firstFrame = codec.encode(new Message(MessageType.TEXT_MESSAGE, "first"));
+        byte[] secondFrame = codec.encode(new Message(MessageType.TEXT_MESSAGE, "second"));
+        ByteBuffer buffer = ByteBuffer.allocate(firstFrame.length + secondFrame.length)
+                .put(firstFrame)
+                .put(secondFrame);
+
+        int firstFrameEnd = codec.findFrameEnd(buffer, 0, 0, buffer.position());
+        int secondFrameEnd = codec.findFrameEnd(buffer, firstFrameEnd, firstFrameEnd, buffer.position());
+
+        assertEquals(firstFrame.length, firstFrameEnd);
+        assertEquals(buffer.position(), secondFrameEnd);
+        assertEquals("second", codec.decode(buffer, firstFrameEnd, secondFrameEnd).getMessageText());
+    }
+
+    @Test
+    void waitsForTheRestOfATruncatedFrame() throws Exception {
+        byte[] frame = codec.encode(new Message(MessageType.TEXT_MESSAGE, "truncated"));
+        ByteBuffer buffer = ByteBuffer.wrap(frame);
+
+        assertEquals(-1, codec.findFrameEnd(buffer, 0, 0, Integer.BYTES - 1));
+        assertEquals(-1, codec.findFrameEnd(buffer, 0, 0, frame.length - 1));
+        assertEquals(frame.length, codec.findFrameEnd(buffer, 0, frame.length - 1, frame.length));
+    }
+
+    @Test
+    void rejectsFrameLengthsOutOfBounds() {
+        ByteBuffer tooShortFrame = ByteBuffer.allocate(Integer.BYTES).putInt(0, 1);
+        ByteBuffer tooLongFrame = ByteBuffer.allocate(Integer.BYTES).putInt(0, MessageCodec.MAX_FRAME_LENGTH + 1);
+        ByteBuffer negativeLengthFrame = ByteBuffer.allocate(Integer.BYTES).putInt(0, -5);
+
+        assertThrows(ProtocolException.class, () -> codec.findFrameEnd(tooShortFrame, 0, 0, Integer.BYTES));
+        assertThrows(ProtocolException.class, () -> codec.findFrameEnd(tooLongFrame, 0, 0, Integer.BYTES));
+        assertThrows(ProtocolException.class, () -> codec.findFrameEnd(negativeLengthFrame, 0, 0, Integer.BYTES));
+    }
+
+    @Test
+    void rejectsUnknownMessageTypeOrdinal() {
+        byte[] frame = codec.encode(new Message(MessageType.DISCONNECT));
+        frame[Integer.BYTES] = (byte) MessageType.values().length;
+
+        assertThrows(ProtocolException.class, () -> codec.decode(ByteBuffer.wrap(frame), 0, frame.length));
+    }
+
+    @Test
+    void rejectsUnknownCodecTypeOrdinal() {
+        byte[] frame = codec.encode(Message.builder()
+                .messageType(MessageType.NEW_USERNAME)
+                .codecType(MessageCodecType.BINARY)
+                .build());
+        frame[frame.length - 1] = (byte) MessageCodecType.values().length;
+
+        assertThrows(ProtocolException.class, () -> codec.decode(ByteBuffer.wrap(frame), 0, frame.length));
+    }
+
+    @Test
+    void rejectsTextLongerThanTheFrame() {
+        byte[] frame = codec.encode(new Message(MessageType.TEXT_MESSAGE, "abc"));
+        frame[Integer.BYTES + 2] = 100;
+
+        assertThrows(ProtocolException.class, () -> codec.decode(ByteBuffer.wrap(frame), 0, frame.length));
+    }
+
+    @Test
+    void rejectsFieldsCutOffByTheFrameEnd() {
+        byte[] frame = codec.encode(Message.builder()
+                .messageType(MessageType.TEXT_MESSAGE)
+                .sequenceId(1L)
+                .build());
+        byte[] truncatedFrame = Arrays.copyOf(frame, frame.length - 3);
+        ByteBuffer.wrap(truncatedFrame).putInt(0, truncatedFrame.length - Integer.BYTES);
+
+        assertThrows(ProtocolException.class,
+                () -> codec.decode(ByteBuffer.wrap(truncatedFrame), 0, truncatedFrame.length));
+    }
+
+    @Test
+    void rejectsUnterminatedVarint() {
+        byte[] frame = {0, 0, 0, 7, (byte) MessageType.TEXT_MESSAGE.ordinal(),
+                (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF};
+
+        assertThrows(ProtocolException.class, () -> codec.decode(ByteBuffer.wrap(frame), 0, frame.length));
+    }
+
+    @Test
+    void rejectsUsernamesCountLargerThanTheFrame() {
+        byte[] frame = {0, 0, 0, 7, (byte) MessageType.LOGIN_ACCEPTED.ordinal(), 2,
+                (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07};
+
+        assertThrows(ProtocolException.class, () -> codec.decode(ByteBuffer.wrap(frame), 0, frame.length));
+    }
+
+    @Test
+    void readsFramesFromAStream() throws Exception {
+        byte[] firstFrame = codec.encode(new Message(MessageType.TEXT_MESSAGE, "first"));
+        byte[] secondFrame = codec.encode(new Message(MessageType.TEXT_MESSAGE, "second"));
+        byte[] streamBytes = new byte[firstFrame.length + secondFrame.length];
+        System.arraycopy(firstFrame, 0, streamBytes, 0, firstFrame.length);
+        System.arraycopy(secondFrame, 0, streamBytes, firstFrame.length, secondFrame.length);
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(streamBytes);
+
+        assertEquals("first", codec.readMessage(inputStream).getMessageText());
+        assertEquals("second", codec.readMessage(inputStream).getMessageText());
+        assertThrows(EOFException.class, () -> codec.readMessage(inputStream));
+    }
+
+    @Test
+    void failsOnAStreamEndingInsideAFrame() {
+        byte[] frame = codec.encode(new Message(MessageType.TEXT_MESSAGE, "cut"));
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(Arrays.copyOf(frame, frame.length - 1));
+
+        assertThrows(EOFException.class, () -> codec.readMessage(inputStream));
+    }
+}
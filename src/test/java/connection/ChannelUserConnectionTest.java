@@ -0,0 +1,157 @@
+package connection;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChannelUserConnectionTest {
+    private static final int SOCKET_BUFFER_SIZE = 8 * 1024;
+    private static final int LARGE_MESSAGE_LENGTH = 1024 * 1024;
+    private static final long AWAIT_TIMEOUT_MILLIS_TIME = 10_000;
+
+    private final MessageCodec codec = MessageCodecType.JSON.getCodec();
+    private final UserMetaInfo userMetaInfo = UserMetaInfo.builder().username("alice").build();
+
+    private SocketChannel serverSideChannel;
+    private SocketChannel clientSideChannel;
+
+    @BeforeEach
+    void connectChannels() throws IOException {
+        try (ServerSocketChannel serverSocketChannel = ServerSocketChannel.open()) {
+            serverSocketChannel.bind(new InetSocketAddress("localhost", 0));
+            clientSideChannel = SocketChannel.open();
+            clientSideChannel.setOption(StandardSocketOptions.SO_RCVBUF, SOCKET_BUFFER_SIZE);
+            clientSideChannel.connect(serverSocketChannel.getLocalAddress());
+            serverSideChannel = serverSocketChannel.accept();
+        }
+        serverSideChannel.setOption(StandardSocketOptions.SO_SNDBUF, SOCKET_BUFFER_SIZE);
+        serverSideChannel.configureBlocking(false);
+    }
+
+    @AfterEach
+    void closeChannels() throws IOException {
+        serverSideChannel.close();
+        clientSideChannel.close();
+    }
+
+    @Test
+    void finishesAPartiallyWrittenFrameOnTheNextFlushes() throws Exception {
+        ChannelUserConnection userConnection = createUserConnection(OutboundQueueSettings.builder().build());
+        String largeMessageText = "x".repeat(LARGE_MESSAGE_LENGTH);
+
+        userConnection.send(new Message(MessageType.TEXT_MESSAGE, largeMessageText));
+
+        assertTrue(userConnection.hasPendingOutboundFrames());
+        assertEquals(0, userMetaInfo.getAllReceivedMessagesNumber());
+
+        CompletableFuture<List<Message>> receivedMessages = receiveMessagesInBackground(1);
+        flushUntilWritten(userConnection);
+
+        assertEquals(largeMessageText, receivedMessages.get(AWAIT_TIMEOUT_MILLIS_TIME, TimeUnit.MILLISECONDS).get(0).getMessageText());
+        assertEquals(1, userMetaInfo.getAllReceivedMessagesNumber());
+        assertEquals(codec.encode(new Message(MessageType.TEXT_MESSAGE, largeMessageText)).length,
+                userMetaInfo.getOutboundBytesNumber());
+    }
+
+    @Test
+    void flushesQueuedFramesInBatchesOfTheConfiguredSize() throws Exception {
+        ChannelUserConnection userConnection = createUserConnection(OutboundQueueSettings.builder()
+                .maxFramesPerFlush(2)
+                .build());
+        for (int i = 1; i <= 5; i++) {
+            userConnection.enqueue(new Message(MessageType.TEXT_MESSAGE, "message" + i));
+        }
+
+        assertEquals(5, userConnection.getOutboundQueueSize());
+        userConnection.flushPendingWrites();
+
+        assertFalse(userConnection.hasPendingOutboundFrames());
+        assertEquals(3, userConnection.getFlushStatistics().getFlushesNumber());
+        assertEquals(5, userConnection.getFlushStatistics().getFlushedFramesNumber());
+        assertEquals(5, userMetaInfo.getAllReceivedMessagesNumber());
+        List<Message> receivedMessages = receiveMessagesInBackground(5).get(AWAIT_TIMEOUT_MILLIS_TIME, TimeUnit.MILLISECONDS);
+        for (int i = 1; i <= 5; i++) {
+            assertEquals("message" + i, receivedMessages.get(i - 1).getMessageText());
+        }
+    }
+
+    @Test
+    void queuesFramesBehindAPartiallyWrittenFrame() throws Exception {
+        ChannelUserConnection userConnection = createUserConnection(OutboundQueueSettings.builder().build());
+        String largeMessageText = "x".repeat(LARGE_MESSAGE_LENGTH);
+
+        userConnection.send(new Message(MessageType.TEXT_MESSAGE, largeMessageText));
+        userConnection.send(new Message(MessageType.TEXT_MESSAGE, "after"));
+
+        assertEquals(1, userConnection.getOutboundQueueSize());
+        CompletableFuture<List<Message>> receivedMessages = receiveMessagesInBackground(2);
+        flushUntilWritten(userConnection);
+
+        List<Message> messages = receivedMessages.get(AWAIT_TIMEOUT_MILLIS_TIME, TimeUnit.MILLISECONDS);
+        assertEquals(largeMessageText, messages.get(0).getMessageText());
+        assertEquals("after", messages.get(1).getMessageText());
+        assertEquals(2, userMetaInfo.getAllReceivedMessagesNumber());
+    }
+
+    @Test
+    void shutsTheConnectionDownWhenTheQueueOverflowsUnderTheDisconnectPolicy() throws Exception {
+        ChannelUserConnection userConnection = createUserConnection(OutboundQueueSettings.builder()
+                .capacity(1)
+                .slowConsumerPolicy(SlowConsumerPolicy.DISCONNECT)
+                .build());
+        userConnection.enqueue(new Message(MessageType.TEXT_MESSAGE, "message1"));
+
+        assertThrows(UncheckedIOException.class,
+                () -> userConnection.enqueue(new Message(MessageType.TEXT_MESSAGE, "message2")));
+
+        assertEquals(0, userConnection.getOutboundQueueSize());
+        assertThrows(EOFException.class, () -> codec.readMessage(Channels.newInputStream(clientSideChannel)));
+    }
+
+    private ChannelUserConnection createUserConnection(OutboundQueueSettings outboundQueueSettings) {
+        ChannelUserConnection userConnection = new ChannelUserConnection(serverSideChannel, outboundQueueSettings,
+                new ByteBufferPool(SOCKET_BUFFER_SIZE, 1));
+        userConnection.setUserMetaInfo(userMetaInfo);
+        return userConnection;
+    }
+
+    private CompletableFuture<List<Message>> receiveMessagesInBackground(int messagesNumber) {
+        InputStream inputStream = Channels.newInputStream(clientSideChannel);
+        return CompletableFuture.supplyAsync(() -> {
+            List<Message> messages = new ArrayList<>();
+            try {
+                while (messages.size() < messagesNumber) {
+                    messages.add(codec.readMessage(inputStream));
+                }
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+            return messages;
+        });
+    }
+
+    private static void flushUntilWritten(ChannelUserConnection userConnection) throws Exception {
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(AWAIT_TIMEOUT_MILLIS_TIME);
+        while (userConnection.hasPendingOutboundFrames()) {
+            assertTrue(System.nanoTime() < deadlineNanos, "The pending frames were not written in time");
+            userConnection.flushPendingWrites();
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package connection;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.InputStream;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonMessageCodecTest {
+    private final JsonMessageCodec codec = new JsonMessageCodec();
+
+    @Test
+    void decodesEncodedMessage() throws Exception {
+        Message message = Message.builder()
+                .messageType(MessageType.LOGIN_ACCEPTED)
+                .messageText("line one\nline two")
+                .connectedUsernames(Set.of("alice", "bob"))
+                .sequenceId(5L)
+                .roomName("dev")
+                .build();
+
+        byte[] frame = codec.encode(message);
+        Message decodedMessage = codec.decode(ByteBuffer.wrap(frame), 0, frame.length);
+
+        assertEquals(MessageType.LOGIN_ACCEPTED, decodedMessage.getMessageType());
+        assertEquals("line one\nline two", decodedMessage.getMessageText());
+        assertEquals(Set.of("alice", "bob"), decodedMessage.getConnectedUsernames());
+        assertEquals(5L, decodedMessage.getSequenceId());
+        assertEquals("dev", decodedMessage.getRoomName());
+    }
+
+    @Test
+    void endsEachFrameWithASingleDelimiter() {
+        byte[] frame = codec.encode(new Message(MessageType.TEXT_MESSAGE, "a\nb"));
+        ByteBuffer buffer = ByteBuffer.wrap(frame);
+
+        assertEquals(frame.length, codec.findFrameEnd(buffer, 0, 0, frame.length));
+        assertEquals('\n', frame[frame.length - 1]);
+    }
+
+    @Test
+    void findsConsecutiveFramesInOneBuffer() throws Exception {
+        byte[] firstFrame = codec.encode(new Message(MessageType.TEXT_MESSAGE, "first"));
+        byte[] secondFrame = codec.encode(new Message(MessageType.TEXT_MESSAGE, "second"));
+        ByteBuffer buffer = ByteBuffer.allocate(firstFrame.length + secondFrame.length)
+                .put(firstFrame)
+                .put(secondFrame);
+
+        int firstFrameEnd = codec.findFrameEnd(buffer, 0, 0, buffer.position());
+        int secondFrameEnd = codec.findFrameEnd(buffer, firstFrameEnd, firstFrameEnd, buffer.position());
+
+        assertEquals(firstFrame.length, firstFrameEnd);
+        assertEquals(buffer.position(), secondFrameEnd);
+        assertEquals("second", codec.decode(buffer, firstFrameEnd, secondFrameEnd).getMessageText());
+    }
+
+    @Test
+    void resumesTheDelimiterScanFromTheScannedOffset() {
+        byte[] frame = codec.encode(new Message(MessageType.TEXT_MESSAGE, "partial"));
+        ByteBuffer buffer = ByteBuffer.wrap(frame);
+
+        assertEquals(-1, codec.findFrameEnd(buffer, 0, 0, frame.length - 1));
+        assertEquals(frame.length, codec.findFrameEnd(buffer, 0, frame.length - 1, frame.length));
+    }
+
+    @Test
+    void rejectsMalformedJson() {
+        byte[] frame = "{\"messageType\":\"TEXT_MESSAGE\",\n".getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(ProtocolException.class, () -> codec.decode(ByteBuffer.wrap(frame), 0, frame.length));
+    }
+
+    @Test
+    void decodesUnknownMessageTypeAsMissingType() throws Exception {
+        byte[] frame = "{\"messageType\":\"NO_SUCH_TYPE\"}\n".getBytes(StandardCharsets.UTF_8);
+
+        assertNull(codec.decode(ByteBuffer.wrap(frame), 0, frame.length).getMessageType());
+    }
+
+    @Test
+    void rejectsEmptyFrame() {
+        byte[] frame = "\n".getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(ProtocolException.class, () -> codec.decode(ByteBuffer.wrap(frame), 0, frame.length));
+    }
+
+    @Test
+    void readsMessagesFromAStream() throws Exception {
+        InputStream inputStream = new ByteArrayInputStream(
+                "{\"messageType\":\"TEXT_MESSAGE\",\"messageText\":\"first\"}\n{\"messageType\":\"DISCONNECT\"}\n"
+                        .getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("first", codec.readMessage(inputStream).getMessageText());
+        assertEquals(MessageType.DISCONNECT, codec.readMessage(inputStream).getMessageType());
+        assertThrows(EOFException.class, () -> codec.readMessage(inputStream));
+    }
+
+    @Test
+    void failsOnAStreamEndingInsideAMessage() {
+        InputStream inputStream = new ByteArrayInputStream(
+                "{\"messageType\":\"TEXT_MESSAGE\"".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(EOFException.class, () -> codec.readMessage(inputStream));
+    }
+
+    @Test
+    void rejectsAStreamLineLongerThanTheFrameLimit() {
+        InputStream endlessLine = new InputStream() {
+            @Override
+            public int read() {
+                return 'x';
+            }
+        };
+
+        assertThrows(ProtocolException.class, () -> codec.readMessage(endlessLine));
+    }
+}
@@ -0,0 +1,112 @@
+package connection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutboundMessageQueueTest {
+    private static final int CAPACITY = 3;
+    private static final long BLOCK_TIMEOUT_MILLIS_TIME = 100;
+
+    @Test
+    void dropsTheOldestFramesWhenFull() throws Exception {
+        OutboundMessageQueue<Integer> queue = createQueue(SlowConsumerPolicy.DROP_OLDEST, BLOCK_TIMEOUT_MILLIS_TIME);
+        offerFrames(queue, 1, 5);
+
+        assertEquals(List.of(3, 4, 5), pollAllFrames(queue));
+        assertEquals(2, queue.getDroppedFramesNumber());
+    }
+
+    @Test
+    void rejectsNewFramesWhenFullUnderTheDisconnectPolicy() throws Exception {
+        OutboundMessageQueue<Integer> queue = createQueue(SlowConsumerPolicy.DISCONNECT, BLOCK_TIMEOUT_MILLIS_TIME);
+        offerFrames(queue, 1, CAPACITY);
+
+        assertFalse(queue.offer(4, true));
+        assertEquals(List.of(1, 2, 3), pollAllFrames(queue));
+        assertEquals(0, queue.getDroppedFramesNumber());
+    }
+
+    @Test
+    void rejectsNewFramesAfterTheBlockTimeout() throws Exception {
+        OutboundMessageQueue<Integer> queue = createQueue(SlowConsumerPolicy.BLOCK_WITH_TIMEOUT, BLOCK_TIMEOUT_MILLIS_TIME);
+        offerFrames(queue, 1, CAPACITY);
+
+        long offerStartNanos = System.nanoTime();
+        assertFalse(queue.offer(4, true));
+
+        assertTrue(System.nanoTime() - offerStartNanos >= TimeUnit.MILLISECONDS.toNanos(BLOCK_TIMEOUT_MILLIS_TIME));
+        assertEquals(CAPACITY, queue.size());
+    }
+
+    @Test
+    void doesNotBlockCallersThatCannotWait() throws Exception {
+        OutboundMessageQueue<Integer> queue = createQueue(SlowConsumerPolicy.BLOCK_WITH_TIMEOUT, 10_000);
+        offerFrames(queue, 1, CAPACITY);
+
+        long offerStartNanos = System.nanoTime();
+        assertFalse(queue.offer(4, false));
+
+        assertTrue(System.nanoTime() - offerStartNanos < TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    void acceptsABlockedFrameOnceAFrameIsTaken() throws Exception {
+        OutboundMessageQueue<Integer> queue = createQueue(SlowConsumerPolicy.BLOCK_WITH_TIMEOUT, 10_000);
+        offerFrames(queue, 1, CAPACITY);
+
+        CompletableFuture<Boolean> blockedOffer = CompletableFuture.supplyAsync(() -> {
+            try {
+                return queue.offer(4, true);
+            } catch (InterruptedException exception) {
+                throw new IllegalStateException(exception);
+            }
+        });
+        Thread.sleep(BLOCK_TIMEOUT_MILLIS_TIME);
+        assertFalse(blockedOffer.isDone());
+        assertEquals(1, queue.poll());
+
+        assertTrue(blockedOffer.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(2, 3, 4), pollAllFrames(queue));
+    }
+
+    @Test
+    void drainsAtMostTheRequestedNumberOfFrames() throws Exception {
+        OutboundMessageQueue<Integer> queue = createQueue(SlowConsumerPolicy.DROP_OLDEST, BLOCK_TIMEOUT_MILLIS_TIME);
+        offerFrames(queue, 1, CAPACITY);
+        Integer[] batch = new Integer[CAPACITY];
+
+        assertEquals(2, queue.drainTo(batch, 2));
+        assertArrayEquals(new Integer[]{1, 2, null}, batch);
+        assertTrue(queue.awaitSizeAtMost(1, 0));
+        assertFalse(queue.awaitSizeAtMost(0, 10));
+    }
+
+    private static OutboundMessageQueue<Integer> createQueue(SlowConsumerPolicy slowConsumerPolicy, long blockTimeoutMillis) {
+        return new OutboundMessageQueue<>(OutboundQueueSettings.builder()
+                .capacity(CAPACITY)
+                .slowConsumerPolicy(slowConsumerPolicy)
+                .blockTimeoutMillis(blockTimeoutMillis)
+                .build());
+    }
+
+    private static void offerFrames(OutboundMessageQueue<Integer> queue, int fromFrame, int toFrame) throws InterruptedException {
+        for (int frame = fromFrame; frame <= toFrame; frame++) {
+            assertTrue(queue.offer(frame, true));
+        }
+    }
+
+    private static List<Integer> pollAllFrames(OutboundMessageQueue<Integer> queue) {
+        List<Integer> frames = new ArrayList<>();
+        Integer frame;
+        while ((frame = queue.poll()) != null) {
+            frames.add(frame);
+        }
+        return frames;
+    }
+}
@@ -0,0 +1,210 @@
+package history;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoryLogTest {
+    private static final int SEGMENT_SIZE_BYTES = 4096;
+    private static final int RECORD_HEADER_SIZE = 24;
+    private static final int PAYLOAD_SIZE = 8;
+    private static final int RECORD_SIZE = RECORD_HEADER_SIZE + PAYLOAD_SIZE;
+
+    @TempDir
+    Path historyDirectory;
+
+    @Test
+    void readsAppendedRecordsBack() throws Exception {
+        try (HistoryLog historyLog = openHistoryLog(SEGMENT_SIZE_BYTES, 16)) {
+            appendRecords(historyLog, 1, 10);
+
+            List<HistoryRecord> records = historyLog.readRecords(4, 3);
+
+            assertEquals(List.of(4L, 5L, 6L), toSequenceIds(records));
+            assertEquals("payload4", new String(records.get(0).payload(), StandardCharsets.UTF_8));
+            assertEquals(4000L, records.get(0).timestampEpochNanos());
+            assertEquals(1, historyLog.getFirstSequenceId());
+            assertEquals(10, historyLog.getLastSequenceId());
+        }
+    }
+
+    @Test
+    void rejectsSequenceIdsThatDoNotGrow() throws Exception {
+        try (HistoryLog historyLog = openHistoryLog(SEGMENT_SIZE_BYTES, 16)) {
+            appendRecords(historyLog, 1, 3);
+
+            assertThrows(IOException.class, () -> historyLog.append(3, 5000, buildPayload(3)));
+            assertEquals(3, historyLog.getLastSequenceId());
+        }
+    }
+
+    @Test
+    void rejectsRecordsLargerThanASegment() throws Exception {
+        try (HistoryLog historyLog = openHistoryLog(SEGMENT_SIZE_BYTES, 16)) {
+            assertThrows(IOException.class, () -> historyLog.append(1, 1000, new byte[SEGMENT_SIZE_BYTES]));
+        }
+    }
+
+    @Test
+    void readsTheLastPageBeforeASequenceId() throws Exception {
+        try (HistoryLog historyLog = openHistoryLog(SEGMENT_SIZE_BYTES, 16)) {
+            appendRecords(historyLog, 1, 50);
+
+            assertEquals(List.of(37L, 38L, 39L), toSequenceIds(historyLog.readRecordsBefore(40, 3)));
+            assertEquals(List.of(1L, 2L), toSequenceIds(historyLog.readRecordsBefore(3, 10)));
+            assertEquals(List.of(), toSequenceIds(historyLog.readRecordsBefore(1, 10)));
+        }
+    }
+
+    @Test
+    void findsTheFirstRecordAtOrAfterATimestamp() throws Exception {
+        try (HistoryLog historyLog = openHistoryLog(SEGMENT_SIZE_BYTES, 16)) {
+            appendRecords(historyLog, 1, 10);
+
+            assertEquals(1, historyLog.findSequenceIdByTime(0));
+            assertEquals(5, historyLog.findSequenceIdByTime(4500));
+            assertEquals(5, historyLog.findSequenceIdByTime(5000));
+            assertEquals(11, historyLog.findSequenceIdByTime(10_001));
+        }
+    }
+
+    @Test
+    void rollsOverToNewSegmentsAndReadsAcrossThem() throws Exception {
+        int recordsNumber = 3 * SEGMENT_SIZE_BYTES / RECORD_SIZE;
+        try (HistoryLog historyLog = openHistoryLog(SEGMENT_SIZE_BYTES, 16)) {
+            appendRecords(historyLog, 1, recordsNumber);
+
+            assertTrue(historyLog.getSegmentsNumber() > 3);
+            List<HistoryRecord> records = historyLog.readRecords(1, recordsNumber);
+            assertEquals(recordsNumber, records.size());
+            for (int i = 0; i < recordsNumber; i++) {
+                assertEquals(i + 1, records.get(i).sequenceId());
+            }
+        }
+    }
+
+    @Test
+    void dropsTheOldestSegmentsOverTheRetainedNumber() throws Exception {
+        try (HistoryLog historyLog = openHistoryLog(SEGMENT_SIZE_BYTES, 2)) {
+            appendRecords(historyLog, 1, 5 * SEGMENT_SIZE_BYTES / RECORD_SIZE);
+
+            assertEquals(2, historyLog.getSegmentsNumber());
+            assertEquals(2, countSegmentFiles());
+            assertTrue(historyLog.getFirstSequenceId() > 1);
+            assertEquals(historyLog.getFirstSequenceId(), historyLog.readRecords(1, 1).get(0).sequenceId());
+        }
+    }
+
+    @Test
+    void recoversRecordsAfterReopening() throws Exception {
+        try (HistoryLog historyLog = openHistoryLog(SEGMENT_SIZE_BYTES, 16)) {
+            appendRecords(historyLog, 1, 200);
+        }
+
+        try (HistoryLog historyLog = openHistoryLog(SEGMENT_SIZE_BYTES, 16)) {
+            assertEquals(1, historyLog.getFirstSequenceId());
+            assertEquals(200, historyLog.getLastSequenceId());
+            assertEquals(List.of(199L, 200L), toSequenceIds(historyLog.readRecordsBefore(201, 2)));
+
+            historyLog.append(201, 201_000, buildPayload(201));
+            assertEquals(201, historyLog.getLastSequenceId());
+        }
+    }
+
+    @Test
+    void truncatesTheRecordWithACorruptedChecksumOnReopening() throws Exception {
+        try (HistoryLog historyLog = openHistoryLog(SEGMENT_SIZE_BYTES, 16)) {
+            appendRecords(historyLog, 1, 5);
+        }
+        overwriteSegmentBytes(2 * RECORD_SIZE + RECORD_HEADER_SIZE, new byte[]{'X'});
+
+        try (HistoryLog historyLog = openHistoryLog(SEGMENT_SIZE_BYTES, 16)) {
+            assertEquals(2, historyLog.getLastSequenceId());
+            assertEquals(List.of(1L, 2L), toSequenceIds(historyLog.readRecords(1, 10)));
+
+            historyLog.append(3, 3000, buildPayload(3));
+            assertEquals(List.of(1L, 2L, 3L), toSequenceIds(historyLog.readRecords(1, 10)));
+        }
+
+        try (HistoryLog historyLog = openHistoryLog(SEGMENT_SIZE_BYTES, 16)) {
+            assertEquals(3, historyLog.getLastSequenceId());
+        }
+    }
+
+    @Test
+    void truncatesATornTailWhoseLengthRunsPastTheSegment() throws Exception {
+        try (HistoryLog historyLog = openHistoryLog(SEGMENT_SIZE_BYTES, 16)) {
+            appendRecords(historyLog, 1, 3);
+        }
+        overwriteSegmentBytes(2 * RECORD_SIZE, ByteBuffer.allocate(Integer.BYTES).putInt(SEGMENT_SIZE_BYTES).array());
+
+        try (HistoryLog historyLog = openHistoryLog(SEGMENT_SIZE_BYTES, 16)) {
+            assertEquals(2, historyLog.getLastSequenceId());
+            assertEquals(List.of(1L, 2L), toSequenceIds(historyLog.readRecords(1, 10)));
+        }
+    }
+
+    @Test
+    void opensTheLogForReadingOnly() throws Exception {
+        try (HistoryLog historyLog = openHistoryLog(SEGMENT_SIZE_BYTES, 16)) {
+            appendRecords(historyLog, 1, 3);
+        }
+
+        try (HistoryLog historyLog = HistoryLog.openForReading(historyDirectory)) {
+            assertEquals(List.of(1L, 2L, 3L), toSequenceIds(historyLog.readRecords(1, 10)));
+            assertThrows(IOException.class, () -> historyLog.append(4, 4000, buildPayload(4)));
+        }
+    }
+
+    private HistoryLog openHistoryLog(int segmentSizeBytes, int retainedSegmentsNumber) throws IOException {
+        return HistoryLog.open(HistorySettings.builder()
+                .directory(historyDirectory)
+                .segmentSizeBytes(segmentSizeBytes)
+                .indexIntervalBytes(256)
+                .retainedSegmentsNumber(retainedSegmentsNumber)
+                .build());
+    }
+
+    private static void appendRecords(HistoryLog historyLog, long fromSequenceId, long toSequenceId) throws IOException {
+        for (long sequenceId = fromSequenceId; sequenceId <= toSequenceId; sequenceId++) {
+            historyLog.append(sequenceId, sequenceId * 1000, buildPayload(sequenceId));
+        }
+    }
+
+    private static byte[] buildPayload(long sequenceId) {
+        byte[] payload = String.format("payload%d", sequenceId % 10).getBytes(StandardCharsets.UTF_8);
+        assertEquals(PAYLOAD_SIZE, payload.length);
+        return payload;
+    }
+
+    private static List<Long> toSequenceIds(List<HistoryRecord> records) {
+        return records.stream().map(HistoryRecord::sequenceId).toList();
+    }
+
+    private void overwriteSegmentBytes(long position, byte[] bytes) throws IOException {
+        Path segmentPath;
+        try (Stream<Path> directoryFiles = Files.list(historyDirectory)) {
+            segmentPath = directoryFiles.filter(HistorySegment::isSegmentFile).findFirst().orElseThrow();
+        }
+        try (FileChannel fileChannel = FileChannel.open(segmentPath, StandardOpenOption.WRITE)) {
+            fileChannel.write(ByteBuffer.wrap(bytes), position);
+        }
+    }
+
+    private long countSegmentFiles() throws IOException {
+        try (Stream<Path> directoryFiles = Files.list(historyDirectory)) {
+            return directoryFiles.filter(HistorySegment::isSegmentFile).count();
+        }
+    }
+}
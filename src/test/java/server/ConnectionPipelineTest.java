@@ -0,0 +1,86 @@
+package server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPipelineTest {
+    private static final long HANDSHAKE_TIMEOUT_MILLIS_TIME = 50;
+    private static final long AWAIT_TIMEOUT_MILLIS_TIME = 5000;
+
+    private final ConnectionPipeline connectionPipeline = new ConnectionPipeline(ConnectionPipelineSettings.builder()
+            .handshakeThreadsNumber(1)
+            .handshakeQueueCapacity(1)
+            .handshakeTimeoutMillis(HANDSHAKE_TIMEOUT_MILLIS_TIME)
+            .build());
+
+    @AfterEach
+    void shutdownPipeline() {
+        connectionPipeline.shutdown();
+    }
+
+    @Test
+    void closesTheConnectionWhenTheHandshakeTimesOut() throws Exception {
+        CountDownLatch closedLatch = new CountDownLatch(1);
+
+        connectionPipeline.scheduleHandshakeTimeout(closedLatch::countDown);
+
+        assertTrue(closedLatch.await(AWAIT_TIMEOUT_MILLIS_TIME, TimeUnit.MILLISECONDS));
+        assertEquals(1, connectionPipeline.getTimedOutHandshakesNumber());
+    }
+
+    @Test
+    void leavesTheConnectionOpenWhenTheHandshakeCompletesInTime() throws Exception {
+        CountDownLatch closedLatch = new CountDownLatch(1);
+
+        ScheduledFuture<?> handshakeTimeout = connectionPipeline.scheduleHandshakeTimeout(closedLatch::countDown);
+        handshakeTimeout.cancel(false);
+
+        assertFalse(closedLatch.await(4 * HANDSHAKE_TIMEOUT_MILLIS_TIME, TimeUnit.MILLISECONDS));
+        assertEquals(0, connectionPipeline.getTimedOutHandshakesNumber());
+    }
+
+    @Test
+    void rejectsHandshakesOverTheQueueCapacity() throws Exception {
+        CountDownLatch runningHandshakeLatch = new CountDownLatch(1);
+        CountDownLatch releaseHandshakeLatch = new CountDownLatch(1);
+        CountDownLatch queuedHandshakeLatch = new CountDownLatch(1);
+
+        assertTrue(connectionPipeline.submitHandshake(() -> {
+            runningHandshakeLatch.countDown();
+            awaitQuietly(releaseHandshakeLatch);
+        }));
+        assertTrue(runningHandshakeLatch.await(AWAIT_TIMEOUT_MILLIS_TIME, TimeUnit.MILLISECONDS));
+        assertTrue(connectionPipeline.submitHandshake(queuedHandshakeLatch::countDown));
+        assertFalse(connectionPipeline.submitHandshake(() -> { }));
+
+        assertEquals(1, connectionPipeline.getHandshakeQueueDepth());
+        assertEquals(3, connectionPipeline.getAcceptedConnectionsNumber());
+        assertEquals(1, connectionPipeline.getRejectedConnectionsNumber());
+
+        releaseHandshakeLatch.countDown();
+        assertTrue(queuedHandshakeLatch.await(AWAIT_TIMEOUT_MILLIS_TIME, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void rethrowsTheFailureOfARegistration() throws Exception {
+        assertTrue(connectionPipeline.registerNewUser(() -> true));
+        assertThrows(IOException.class, () -> connectionPipeline.registerNewUser(() -> {
+            throw new IOException("The user has disconnected");
+        }));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(AWAIT_TIMEOUT_MILLIS_TIME, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package server;
+
+import connection.Message;
+import connection.MessageType;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PresenceTrackerTest {
+    private final PresenceTracker presenceTracker = new PresenceTracker();
+
+    @Test
+    void buildsNoDeltaWithoutPendingChanges() {
+        assertNull(presenceTracker.buildPendingDeltaMessage());
+        assertEquals(0, presenceTracker.getPresenceVersion());
+    }
+
+    @Test
+    void chainsDeltaVersions() {
+        presenceTracker.recordUserAdded("alice");
+        Message firstDelta = presenceTracker.buildPendingDeltaMessage();
+        presenceTracker.recordUserAdded("bob");
+        presenceTracker.recordUserRemoved("alice");
+        Message secondDelta = presenceTracker.buildPendingDeltaMessage();
+
+        assertEquals(MessageType.PRESENCE_DELTA, firstDelta.getMessageType());
+        assertEquals(0L, firstDelta.getPreviousPresenceVersion());
+        assertEquals(1L, firstDelta.getPresenceVersion());
+        assertEquals(Set.of("alice"), firstDelta.getConnectedUsernames());
+        assertEquals(Set.of(), firstDelta.getRemovedUsernames());
+
+        assertEquals(1L, secondDelta.getPreviousPresenceVersion());
+        assertEquals(2L, secondDelta.getPresenceVersion());
+        assertEquals(Set.of("bob"), secondDelta.getConnectedUsernames());
+        assertEquals(Set.of("alice"), secondDelta.getRemovedUsernames());
+        assertEquals(2, presenceTracker.getPresenceVersion());
+    }
+
+    @Test
+    void cancelsChangesThatRevertEachOtherBeforeTheDelta() {
+        presenceTracker.recordUserAdded("alice");
+        presenceTracker.recordUserRemoved("alice");
+
+        assertEquals(0, presenceTracker.getPendingChangesNumber());
+        assertNull(presenceTracker.buildPendingDeltaMessage());
+        assertEquals(0, presenceTracker.getPresenceVersion());
+    }
+
+    @Test
+    void keepsOnlyTheLastChangeOfAVersionedUser() {
+        presenceTracker.recordUserAdded("alice");
+        presenceTracker.buildPendingDeltaMessage();
+        presenceTracker.recordUserRemoved("alice");
+        presenceTracker.recordUserAdded("alice");
+
+        assertNull(presenceTracker.buildPendingDeltaMessage());
+        assertEquals(1, presenceTracker.getPresenceVersion());
+    }
+
+    @Test
+    void splitsSnapshotIntoPagesVersionedOnTheLastOne() {
+        Set<String> usernames = Set.of("alice", "bob", "carol", "dave", "eve");
+        usernames.forEach(presenceTracker::recordUserAdded);
+        presenceTracker.buildPendingDeltaMessage();
+
+        List<Message> snapshotPages = presenceTracker.buildSnapshotMessages(2);
+
+        assertEquals(3, snapshotPages.size());
+        Set<String> snapshotUsernames = new HashSet<>();
+        for (int i = 0; i < snapshotPages.size(); i++) {
+            Message snapshotPage = snapshotPages.get(i);
+            assertEquals(MessageType.PRESENCE_SNAPSHOT, snapshotPage.getMessageType());
+            assertTrue(snapshotPage.getConnectedUsernames().size() <= 2);
+            assertEquals(i == snapshotPages.size() - 1 ? Long.valueOf(1) : null, snapshotPage.getPresenceVersion());
+            snapshotUsernames.addAll(snapshotPage.getConnectedUsernames());
+        }
+        assertEquals(usernames, snapshotUsernames);
+    }
+
+    @Test
+    void leavesPendingChangesOutOfTheSnapshot() {
+        presenceTracker.recordUserAdded("alice");
+        presenceTracker.buildPendingDeltaMessage();
+        presenceTracker.recordUserAdded("bob");
+
+        List<Message> snapshotPages = presenceTracker.buildSnapshotMessages(10);
+
+        assertEquals(1, snapshotPages.size());
+        assertEquals(Set.of("alice"), snapshotPages.get(0).getConnectedUsernames());
+        assertEquals(1L, snapshotPages.get(0).getPresenceVersion());
+    }
+
+    @Test
+    void buildsVersionedPageForAnEmptySnapshot() {
+        List<Message> snapshotPages = presenceTracker.buildSnapshotMessages(10);
+
+        assertEquals(1, snapshotPages.size());
+        assertEquals(Set.of(), snapshotPages.get(0).getConnectedUsernames());
+        assertEquals(0L, snapshotPages.get(0).getPresenceVersion());
+    }
+}
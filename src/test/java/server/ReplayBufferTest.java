@@ -0,0 +1,108 @@
+package server;
+
+import connection.EncodedMessage;
+import connection.Message;
+import connection.MessageCodec;
+import connection.MessageCodecType;
+import connection.MessageType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayBufferTest {
+    private static final MessageCodec BINARY_CODEC = MessageCodecType.BINARY.getCodec();
+    private static final MessageCodec JSON_CODEC = MessageCodecType.JSON.getCodec();
+
+    @Test
+    void replaysNothingWhenEmpty() {
+        ReplayBuffer replayBuffer = createReplayBuffer(3, 1024 * 1024);
+
+        assertEquals(0, replayBuffer.getReplayBytes(BINARY_CODEC).length);
+    }
+
+    @Test
+    void keepsTheNewestMessagesWhenTheRingWrapsAround() throws Exception {
+        ReplayBuffer replayBuffer = createReplayBuffer(3, 1024 * 1024);
+        appendMessages(replayBuffer, 1, 5);
+
+        assertEquals(List.of(3L, 4L, 5L), readReplayedSequenceIds(replayBuffer, BINARY_CODEC));
+
+        appendMessages(replayBuffer, 6, 7);
+
+        assertEquals(List.of(5L, 6L, 7L), readReplayedSequenceIds(replayBuffer, BINARY_CODEC));
+        assertEquals(List.of(5L, 6L, 7L), readReplayedSequenceIds(replayBuffer, JSON_CODEC));
+    }
+
+    @Test
+    void evictsTheOldestMessagesOverTheBytesLimit() throws Exception {
+        int messageSize = buildMessage(1).getBytes(BINARY_CODEC).length;
+        ReplayBuffer replayBuffer = createReplayBuffer(100, 2L * messageSize);
+        appendMessages(replayBuffer, 1, 4);
+
+        assertEquals(List.of(3L, 4L), readReplayedSequenceIds(replayBuffer, BINARY_CODEC));
+    }
+
+    @Test
+    void skipsAMessageLargerThanTheBytesLimit() throws Exception {
+        int messageSize = buildMessage(1).getBytes(BINARY_CODEC).length;
+        ReplayBuffer replayBuffer = createReplayBuffer(100, messageSize);
+        appendMessages(replayBuffer, 1, 1);
+
+        replayBuffer.append(new EncodedMessage(Message.builder()
+                .messageType(MessageType.TEXT_MESSAGE)
+                .messageText("a message longer than the whole replay")
+                .sequenceId(2L)
+                .build()));
+
+        assertEquals(List.of(1L), readReplayedSequenceIds(replayBuffer, BINARY_CODEC));
+    }
+
+    @Test
+    void reusesTheReplayUntilTheNextAppend() {
+        ReplayBuffer replayBuffer = createReplayBuffer(3, 1024 * 1024);
+        appendMessages(replayBuffer, 1, 2);
+
+        byte[] replay = replayBuffer.getReplayBytes(BINARY_CODEC);
+        assertSame(replay, replayBuffer.getReplayBytes(BINARY_CODEC));
+        assertSame(replay, replayBuffer.buildReplayMessage(BINARY_CODEC).getBytes(BINARY_CODEC));
+
+        appendMessages(replayBuffer, 3, 3);
+
+        assertNotSame(replay, replayBuffer.getReplayBytes(BINARY_CODEC));
+    }
+
+    private static ReplayBuffer createReplayBuffer(int maxMessagesNumber, long maxBytesNumber) {
+        return new ReplayBuffer(ReplaySettings.builder()
+                .maxMessagesNumber(maxMessagesNumber)
+                .maxBytesNumber(maxBytesNumber)
+                .build());
+    }
+
+    private static void appendMessages(ReplayBuffer replayBuffer, long fromSequenceId, long toSequenceId) {
+        for (long sequenceId = fromSequenceId; sequenceId <= toSequenceId; sequenceId++) {
+            replayBuffer.append(buildMessage(sequenceId));
+        }
+    }
+
+    private static EncodedMessage buildMessage(long sequenceId) {
+        return new EncodedMessage(Message.builder()
+                .messageType(MessageType.TEXT_MESSAGE)
+                .messageText("message")
+                .sequenceId(sequenceId)
+                .build());
+    }
+
+    private static List<Long> readReplayedSequenceIds(ReplayBuffer replayBuffer, MessageCodec codec) throws IOException {
+        ByteArrayInputStream replayStream = new ByteArrayInputStream(replayBuffer.getReplayBytes(codec));
+        List<Long> sequenceIds = new ArrayList<>();
+        while (replayStream.available() > 0) {
+            sequenceIds.add(codec.readMessage(replayStream).getSequenceId());
+        }
+        return sequenceIds;
+    }
+}
@@ -0,0 +1,232 @@
+package server;
+
+import connection.Message;
+import connection.MessageType;
+import connection.StreamUserConnection;
+import connection.UserConnection;
+import history.HistoryLog;
+import history.HistoryRecord;
+import history.HistorySettings;
+import metrics.MetricsSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServerControllerTest {
+    private static final int RECEIVE_TIMEOUT_MILLIS_TIME = 5000;
+    private static final int SHUTDOWN_TIMEOUT_MILLIS_TIME = 5000;
+
+    @TempDir
+    Path historyDirectory;
+
+    private final ServerController serverController = new ServerController();
+    private final List<UserConnection> usersConnections = new ArrayList<>();
+    private int port;
+
+    @BeforeEach
+    void configureServer() {
+        serverController.setServerLogger(serviceMessage -> { });
+        serverController.setServerModel(new ServerModel());
+        serverController.setEngineMode(ServerEngineMode.SELECTOR);
+        serverController.setMetricsSettings(MetricsSettings.builder().jmxEnabled(false).build());
+        serverController.setHistorySettings(HistorySettings.builder().directory(historyDirectory).build());
+    }
+
+    @AfterEach
+    void stopServer() throws Exception {
+        for (UserConnection userConnection : usersConnections) {
+            userConnection.close();
+        }
+        stopServerAndAwait();
+    }
+
+    @Test
+    void sequencesRoomAndDirectMessagesWithoutReplayingOrPersistingThem() throws Exception {
+        startServer();
+        UserConnection alice = login("alice");
+        UserConnection bob = login("bob");
+        joinRoom(alice, "alice", "dev");
+        joinRoom(bob, "bob", "dev");
+
+        alice.send(Message.builder().messageType(MessageType.TEXT_MESSAGE).messageText("room").roomName("dev").build());
+        Message roomMessage = receiveMessageOfType(bob, MessageType.TEXT_MESSAGE);
+        alice.send(Message.builder().messageType(MessageType.DIRECT_MESSAGE).messageText("direct").recipientUsername("bob").build());
+        Message directMessage = receiveMessageOfType(bob, MessageType.DIRECT_MESSAGE);
+        alice.send(new Message(MessageType.TEXT_MESSAGE, "common"));
+        Message commonMessage = receiveMessageOfType(bob, MessageType.TEXT_MESSAGE);
+
+        assertEquals("dev", roomMessage.getRoomName());
+        assertNotNull(roomMessage.getSequenceId());
+        assertTrue(directMessage.getSequenceId() > roomMessage.getSequenceId());
+        assertTrue(commonMessage.getSequenceId() > directMessage.getSequenceId());
+        assertNull(commonMessage.getRoomName());
+
+        UserConnection carol = login("carol");
+        assertEquals(commonMessage.getSequenceId(), receiveMessageOfType(carol, MessageType.TEXT_MESSAGE).getSequenceId());
+
+        stopServerAndAwait();
+        try (HistoryLog historyLog = HistoryLog.openForReading(historyDirectory)) {
+            List<HistoryRecord> records = historyLog.readRecords(1, 10);
+            assertEquals(List.of(commonMessage.getSequenceId()), records.stream().map(HistoryRecord::sequenceId).toList());
+        }
+    }
+
+    @Test
+    void anchorsTheFirstHistoryPageAtTheSequenceIdAnnouncedOnLogin() throws Exception {
+        startServer();
+        UserConnection alice = login("alice");
+        alice.send(new Message(MessageType.TEXT_MESSAGE, "before"));
+        Message messageBeforeLogin = receiveMessageOfType(alice, MessageType.TEXT_MESSAGE);
+
+        UserConnection bob = connect();
+        Message loginAcceptedMessage = receiveLoginAcceptedMessage(bob, "bob");
+        alice.send(new Message(MessageType.TEXT_MESSAGE, "after"));
+        Message messageAfterLogin = receiveMessageOfType(bob, MessageType.TEXT_MESSAGE);
+        while (messageAfterLogin.getSequenceId() < loginAcceptedMessage.getSequenceId()) {
+            messageAfterLogin = receiveMessageOfType(bob, MessageType.TEXT_MESSAGE);
+        }
+
+        assertEquals(messageBeforeLogin.getSequenceId() + 1, loginAcceptedMessage.getSequenceId());
+        assertEquals(loginAcceptedMessage.getSequenceId(), messageAfterLogin.getSequenceId());
+    }
+
+    @Test
+    void throttlesMessagesOverThePerUserLimit() throws Exception {
+        serverController.setRateLimitSettings(RateLimitSettings.builder()
+                .userMessagesPerSecond(0.001)
+                .userBurstMessagesNumber(2)
+                .build());
+        startServer();
+        UserConnection alice = login("alice");
+
+        for (int i = 1; i <= 5; i++) {
+            alice.send(new Message(MessageType.TEXT_MESSAGE, "message" + i));
+        }
+
+        assertEquals(2, receiveTextMessagesUntilThrottled(alice).size());
+        awaitCondition(() -> serverController.getThrottledByUserLimitMessagesNumber() == 3);
+        assertEquals(0, serverController.getThrottledByServerLimitMessagesNumber());
+        assertEquals(3, serverController.getServerModel().getUserMetaInfoByUsername("alice").getThrottledMessagesNumber());
+    }
+
+    @Test
+    void throttlesMessagesOverTheServerLimitAcrossUsers() throws Exception {
+        serverController.setRateLimitSettings(RateLimitSettings.builder()
+                .userMessagesPerSecond(0)
+                .serverMessagesPerSecond(0.001)
+                .serverBurstMessagesNumber(2)
+                .build());
+        startServer();
+        UserConnection alice = login("alice");
+        UserConnection bob = login("bob");
+
+        alice.send(new Message(MessageType.TEXT_MESSAGE, "message1"));
+        alice.send(new Message(MessageType.TEXT_MESSAGE, "message2"));
+        receiveMessageOfType(bob, MessageType.TEXT_MESSAGE);
+        assertEquals(2L, receiveMessageOfType(bob, MessageType.TEXT_MESSAGE).getSequenceId());
+        bob.send(new Message(MessageType.TEXT_MESSAGE, "message3"));
+
+        assertEquals(List.of(), receiveTextMessagesUntilThrottled(bob));
+        assertEquals(1, serverController.getThrottledByServerLimitMessagesNumber());
+        assertEquals(0, serverController.getThrottledByUserLimitMessagesNumber());
+    }
+
+    private void startServer() throws Exception {
+        try (ServerSocket freePortSocket = new ServerSocket(0)) {
+            port = freePortSocket.getLocalPort();
+        }
+        serverController.setHasServerStarted(true);
+        serverController.startServerOnPort(port);
+        Thread acceptingThread = new Thread(serverController::acceptNewUserConnections);
+        acceptingThread.setDaemon(true);
+        acceptingThread.start();
+    }
+
+    private void stopServerAndAwait() throws InterruptedException {
+        serverController.stopServer();
+        assertTrue(serverController.awaitServerStopped(SHUTDOWN_TIMEOUT_MILLIS_TIME));
+    }
+
+    private UserConnection login(String username) throws IOException {
+        UserConnection userConnection = connect();
+        receiveLoginAcceptedMessage(userConnection, username);
+        return userConnection;
+    }
+
+    private UserConnection connect() throws IOException {
+        Socket socket = new Socket("localhost", port);
+        socket.setSoTimeout(RECEIVE_TIMEOUT_MILLIS_TIME);
+        UserConnection userConnection = new StreamUserConnection(socket);
+        usersConnections.add(userConnection);
+        return userConnection;
+    }
+
+    private Message receiveLoginAcceptedMessage(UserConnection userConnection, String username) throws IOException {
+        while (true) {
+            Message message = userConnection.receive();
+            if (MessageType.isTypeRequestUsername(message.getMessageType())) {
+                userConnection.send(new Message(MessageType.NEW_USERNAME, username));
+            }
+            if (MessageType.isTypeRequestPassword(message.getMessageType())) {
+                userConnection.send(new Message(MessageType.NEW_PASSWORD,
+                        serverController.getServerModel().getCurrentSessionPassword()));
+            }
+            if (MessageType.isTypeLoginError(message.getMessageType())) {
+                fail("The login of " + username + " was rejected");
+            }
+            if (MessageType.isTypeLoginAccepted(message.getMessageType())) {
+                return message;
+            }
+        }
+    }
+
+    private static void joinRoom(UserConnection userConnection, String username, String roomName) throws IOException {
+        userConnection.send(Message.builder().messageType(MessageType.JOIN_ROOM).roomName(roomName).build());
+        Message joinMessage;
+        do {
+            joinMessage = receiveMessageOfType(userConnection, MessageType.JOIN_ROOM);
+        } while (!username.equals(joinMessage.getMessageText()));
+    }
+
+    private static List<String> receiveTextMessagesUntilThrottled(UserConnection userConnection) throws IOException {
+        List<String> textMessages = new ArrayList<>();
+        while (true) {
+            Message message = userConnection.receive();
+            if (MessageType.isTypeThrottled(message.getMessageType())) {
+                return textMessages;
+            }
+            if (MessageType.isTypeTextMessage(message.getMessageType())) {
+                textMessages.add(message.getMessageText());
+            }
+        }
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RECEIVE_TIMEOUT_MILLIS_TIME);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadlineNanos, "The condition was not met in time");
+            Thread.sleep(10);
+        }
+    }
+
+    private static Message receiveMessageOfType(UserConnection userConnection, MessageType messageType) throws IOException {
+        while (true) {
+            Message message = userConnection.receive();
+            if (message.getMessageType() == messageType) {
+                return message;
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package server;
+
+import connection.UserConnection;
+import connection.UserMetaInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServerModelTest {
+    private final ServerModel serverModel = new ServerModel();
+
+    @Test
+    void addsNewUsersToTheDefaultRoom() {
+        UserConnection aliceConnection = addUser("alice");
+
+        assertTrue(serverModel.isUserInRoom("alice", ServerModel.DEFAULT_ROOM_NAME));
+        assertEquals(Set.of(ServerModel.DEFAULT_ROOM_NAME), serverModel.getRoomsNamesByUsername("alice"));
+        assertArrayEquals(new UserConnection[]{aliceConnection}, serverModel.getOnlineUsersConnectionsSnapshot());
+        assertFalse(serverModel.addNewUserIfUsernameAvailable("alice", new StubUserConnection(), buildMetaInfo("alice")));
+    }
+
+    @Test
+    void createsARoomOnTheFirstJoin() {
+        UserConnection aliceConnection = addUser("alice");
+        addUser("bob");
+
+        assertTrue(serverModel.joinRoom("alice", "dev"));
+        assertFalse(serverModel.joinRoom("alice", "dev"));
+        assertFalse(serverModel.joinRoom("carol", "dev"));
+
+        assertTrue(serverModel.isUserInRoom("alice", "dev"));
+        assertFalse(serverModel.isUserInRoom("bob", "dev"));
+        assertEquals(Set.of(ServerModel.DEFAULT_ROOM_NAME, "dev"), serverModel.getRoomNames());
+        assertEquals(Set.of(ServerModel.DEFAULT_ROOM_NAME, "dev"), serverModel.getRoomsNamesByUsername("alice"));
+        assertArrayEquals(new UserConnection[]{aliceConnection}, serverModel.getRoomMembersConnectionsSnapshot("dev"));
+        assertEquals(0, serverModel.getRoomMembersConnectionsSnapshot("ops").length);
+    }
+
+    @Test
+    void removesARoomWhenItsLastMemberLeaves() {
+        addUser("alice");
+        UserConnection bobConnection = addUser("bob");
+        serverModel.joinRoom("alice", "dev");
+        serverModel.joinRoom("bob", "dev");
+
+        assertTrue(serverModel.leaveRoom("alice", "dev"));
+        assertFalse(serverModel.leaveRoom("alice", "dev"));
+        assertArrayEquals(new UserConnection[]{bobConnection}, serverModel.getRoomMembersConnectionsSnapshot("dev"));
+
+        assertTrue(serverModel.leaveRoom("bob", "dev"));
+        assertNull(serverModel.getChatRoomByName("dev"));
+        assertEquals(Set.of(ServerModel.DEFAULT_ROOM_NAME), serverModel.getRoomsNamesByUsername("bob"));
+    }
+
+    @Test
+    void doesNotLetUsersLeaveTheDefaultRoom() {
+        addUser("alice");
+
+        assertFalse(serverModel.leaveRoom("alice", ServerModel.DEFAULT_ROOM_NAME));
+        assertTrue(serverModel.isUserInRoom("alice", ServerModel.DEFAULT_ROOM_NAME));
+    }
+
+    @Test
+    void removesADisconnectedUserFromAllOfItsRooms() {
+        UserConnection aliceConnection = addUser("alice");
+        UserConnection bobConnection = addUser("bob");
+        serverModel.joinRoom("alice", "dev");
+        serverModel.joinRoom("alice", "ops");
+        serverModel.joinRoom("bob", "ops");
+
+        assertFalse(serverModel.removeUserByUsername("alice", new StubUserConnection()));
+        assertTrue(serverModel.removeUserByUsername("alice", aliceConnection));
+
+        assertFalse(serverModel.isUsernameOnline("alice"));
+        assertNull(serverModel.getChatRoomByName("dev"));
+        assertArrayEquals(new UserConnection[]{bobConnection}, serverModel.getRoomMembersConnectionsSnapshot("ops"));
+        assertArrayEquals(new UserConnection[]{bobConnection}, serverModel.getOnlineUsersConnectionsSnapshot());
+        assertEquals(Set.of(), serverModel.getRoomsNamesByUsername("alice"));
+    }
+
+    @Test
+    void keepsOnlyTheEmptyDefaultRoomAfterRemovingAllUsers() {
+        addUser("alice");
+        addUser("bob");
+        serverModel.joinRoom("alice", "dev");
+
+        assertEquals(Set.of("alice", "bob"), serverModel.removeAllUsers().keySet());
+
+        assertEquals(Set.of(ServerModel.DEFAULT_ROOM_NAME), serverModel.getRoomNames());
+        assertEquals(0, serverModel.getOnlineUsersConnectionsSnapshot().length);
+        assertTrue(serverModel.getOnlineUsernames().isEmpty());
+    }
+
+    private UserConnection addUser(String username) {
+        UserConnection userConnection = new StubUserConnection();
+        assertTrue(serverModel.addNewUserIfUsernameAvailable(username, userConnection, buildMetaInfo(username)));
+        return userConnection;
+    }
+
+    private static UserMetaInfo buildMetaInfo(String username) {
+        return UserMetaInfo.builder().username(username).build();
+    }
+}
@@ -0,0 +1,50 @@
+package server;
+
+import connection.EncodedMessage;
+import connection.Message;
+import connection.MessageType;
+import connection.UserConnection;
+
+class StubUserConnection extends UserConnection {
+    @Override
+    public void send(EncodedMessage encodedMessage) {
+    }
+
+    @Override
+    public void enqueue(EncodedMessage encodedMessage) {
+    }
+
+    @Override
+    public Message receive() {
+        return new Message(MessageType.DISCONNECT);
+    }
+
+    @Override
+    public boolean areThereInSocketAnyData() {
+        return false;
+    }
+
+    @Override
+    public int getOutboundQueueSize() {
+        return 0;
+    }
+
+    @Override
+    public long getDroppedFramesNumber() {
+        return 0;
+    }
+
+    @Override
+    public boolean awaitOutboundQueueSizeAtMost(int framesNumber, long timeoutMillis) {
+        return true;
+    }
+
+    @Override
+    public boolean hasPendingOutboundFrames() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,126 @@
+package utilities;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+    private static final double MAX_RELATIVE_ERROR = 1.0 / 64;
+
+    private final LatencyHistogram latencyHistogram = new LatencyHistogram();
+
+    @Test
+    void reportsZerosWhenEmpty() {
+        assertEquals(0, latencyHistogram.getTotalCount());
+        assertEquals(0, latencyHistogram.getMinValue());
+        assertEquals(0, latencyHistogram.getMaxValue());
+        assertEquals(0.0, latencyHistogram.getMeanValue());
+        assertEquals(0, latencyHistogram.getValueAtPercentile(99.0));
+    }
+
+    @Test
+    void keepsSmallValuesExact() {
+        for (long value = 0; value < 100; value++) {
+            latencyHistogram.recordValue(value);
+        }
+
+        assertEquals(100, latencyHistogram.getTotalCount());
+        assertEquals(0, latencyHistogram.getMinValue());
+        assertEquals(99, latencyHistogram.getMaxValue());
+        assertEquals(49.5, latencyHistogram.getMeanValue());
+        assertEquals(49, latencyHistogram.getValueAtPercentile(50.0));
+        assertEquals(89, latencyHistogram.getValueAtPercentile(90.0));
+        assertEquals(98, latencyHistogram.getValueAtPercentile(99.0));
+        assertEquals(99, latencyHistogram.getValueAtPercentile(100.0));
+    }
+
+    @Test
+    void keepsLargeValuesWithinTheRelativeError() {
+        for (long value = 1; value <= 100_000; value++) {
+            latencyHistogram.recordValue(value * 1000);
+        }
+
+        assertWithinRelativeError(50_000_000, latencyHistogram.getValueAtPercentile(50.0));
+        assertWithinRelativeError(90_000_000, latencyHistogram.getValueAtPercentile(90.0));
+        assertWithinRelativeError(99_000_000, latencyHistogram.getValueAtPercentile(99.0));
+        assertWithinRelativeError(99_900_000, latencyHistogram.getValueAtPercentile(99.9));
+        assertEquals(100_000_000, latencyHistogram.getValueAtPercentile(100.0));
+    }
+
+    @Test
+    void neverReportsPercentilesBelowTheRecordedValue() {
+        latencyHistogram.recordValue(1000);
+        latencyHistogram.recordValue(1_000_000);
+
+        long median = latencyHistogram.getValueAtPercentile(50.0);
+
+        assertTrue(median >= 1000);
+        assertWithinRelativeError(1000, median);
+    }
+
+    @Test
+    void capsPercentilesAtTheMaxValue() {
+        latencyHistogram.recordValue(1_000_003);
+
+        assertEquals(1_000_003, latencyHistogram.getValueAtPercentile(50.0));
+        assertEquals(1_000_003, latencyHistogram.getValueAtPercentile(100.0));
+    }
+
+    @Test
+    void recordsNegativeValuesAsZero() {
+        latencyHistogram.recordValue(-5);
+
+        assertEquals(0, latencyHistogram.getMinValue());
+        assertEquals(0, latencyHistogram.getMaxValue());
+        assertEquals(0, latencyHistogram.getValueAtPercentile(100.0));
+    }
+
+    @Test
+    void recordsTheLargestLongValue() {
+        latencyHistogram.recordValue(Long.MAX_VALUE);
+
+        assertEquals(Long.MAX_VALUE, latencyHistogram.getValueAtPercentile(100.0));
+    }
+
+    @Test
+    void countsConcurrentlyRecordedValues() throws Exception {
+        int threadsNumber = 8;
+        int valuesPerThreadNumber = 100_000;
+        ExecutorService executorService = Executors.newFixedThreadPool(threadsNumber);
+        try {
+            for (int i = 0; i < threadsNumber; i++) {
+                executorService.execute(() -> {
+                    for (int j = 0; j < valuesPerThreadNumber; j++) {
+                        latencyHistogram.recordValue(j);
+                    }
+                });
+            }
+        } finally {
+            executorService.shutdown();
+            assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals((long) threadsNumber * valuesPerThreadNumber, latencyHistogram.getTotalCount());
+        assertEquals(valuesPerThreadNumber - 1, latencyHistogram.getMaxValue());
+    }
+
+    @Test
+    void buildsPercentilesReportInTheRequestedUnit() {
+        latencyHistogram.recordValue(TimeUnit.MILLISECONDS.toNanos(2));
+
+        String report = latencyHistogram.buildPercentilesReport(TimeUnit.NANOSECONDS, TimeUnit.MILLISECONDS);
+
+        assertTrue(report.startsWith("count=1 "), report);
+        assertTrue(report.contains(" p99.9="), report);
+        assertTrue(report.endsWith(" max=2.000 (milliseconds)"), report);
+    }
+
+    private static void assertWithinRelativeError(long expectedValue, long actualValue) {
+        assertTrue(Math.abs(actualValue - expectedValue) <= expectedValue * MAX_RELATIVE_ERROR,
+                "expected " + expectedValue + " within " + MAX_RELATIVE_ERROR + " but was " + actualValue);
+    }
+}
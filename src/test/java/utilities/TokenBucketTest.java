@@ -0,0 +1,100 @@
+package utilities;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+    private static final long START_NANOS_TIME = 1_000_000_000L;
+    private static final long MILLI_NANOS_TIME = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void allowsTheWholeBurstAtOnce() {
+        TokenBucket tokenBucket = new TokenBucket(10, 5);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(tokenBucket.tryAcquire(START_NANOS_TIME));
+        }
+        assertFalse(tokenBucket.tryAcquire(START_NANOS_TIME));
+    }
+
+    @Test
+    void refillsOneTokenPerInterval() {
+        TokenBucket tokenBucket = new TokenBucket(10, 1);
+
+        assertTrue(tokenBucket.tryAcquire(START_NANOS_TIME));
+        assertFalse(tokenBucket.tryAcquire(START_NANOS_TIME + 99 * MILLI_NANOS_TIME));
+        assertTrue(tokenBucket.tryAcquire(START_NANOS_TIME + 100 * MILLI_NANOS_TIME));
+        assertFalse(tokenBucket.tryAcquire(START_NANOS_TIME + 150 * MILLI_NANOS_TIME));
+        assertTrue(tokenBucket.tryAcquire(START_NANOS_TIME + 200 * MILLI_NANOS_TIME));
+    }
+
+    @Test
+    void refillsNoMoreThanTheBurstAfterIdleTime() {
+        TokenBucket tokenBucket = new TokenBucket(10, 3);
+        long idleEndNanos = START_NANOS_TIME + TimeUnit.SECONDS.toNanos(60);
+
+        assertTrue(tokenBucket.tryAcquire(START_NANOS_TIME));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(tokenBucket.tryAcquire(idleEndNanos));
+        }
+        assertFalse(tokenBucket.tryAcquire(idleEndNanos));
+    }
+
+    @Test
+    void rejectedAttemptsDoNotConsumeTokens() {
+        TokenBucket tokenBucket = new TokenBucket(10, 1);
+
+        assertTrue(tokenBucket.tryAcquire(START_NANOS_TIME));
+        for (int i = 0; i < 100; i++) {
+            assertFalse(tokenBucket.tryAcquire(START_NANOS_TIME + i * MILLI_NANOS_TIME / 2));
+        }
+        assertTrue(tokenBucket.tryAcquire(START_NANOS_TIME + 100 * MILLI_NANOS_TIME));
+    }
+
+    @Test
+    void treatsBurstBelowOneAsSingleToken() {
+        TokenBucket tokenBucket = new TokenBucket(10, 0);
+
+        assertTrue(tokenBucket.tryAcquire(START_NANOS_TIME));
+        assertFalse(tokenBucket.tryAcquire(START_NANOS_TIME));
+    }
+
+    @Test
+    void grantsExactlyTheBurstToConcurrentCallers() throws Exception {
+        int burstTokensNumber = 1000;
+        int threadsNumber = 8;
+        TokenBucket tokenBucket = new TokenBucket(0.001, burstTokensNumber);
+        AtomicInteger acquiredTokensNumber = new AtomicInteger();
+        CountDownLatch startLatch = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(threadsNumber);
+        try {
+            for (int i = 0; i < threadsNumber; i++) {
+                executorService.execute(() -> {
+                    try {
+                        startLatch.await();
+                    } catch (InterruptedException exception) {
+                        return;
+                    }
+                    for (int j = 0; j < burstTokensNumber; j++) {
+                        if (tokenBucket.tryAcquire(START_NANOS_TIME)) {
+                            acquiredTokensNumber.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            startLatch.countDown();
+        } finally {
+            executorService.shutdown();
+            assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(burstTokensNumber, acquiredTokensNumber.get());
+    }
+}